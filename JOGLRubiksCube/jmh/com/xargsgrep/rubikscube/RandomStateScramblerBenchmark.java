@@ -0,0 +1,49 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Benchmark for generating random state scrambles, which are only supported for 3x3x3 cubes. Each one is solved with
+ * TwoPhaseRubiksCubeSolver, so this mostly measures the solver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomStateScramblerBenchmark {
+	
+	@Param({ "1", "2" })
+	long seed;
+	
+	private Scrambler scrambler;
+	
+	@Setup
+	public void setup() {
+		scrambler = new Scrambler(3, seed);
+		scrambler.randomState(); // loads the solver tables
+	}
+	
+	@Benchmark
+	public int randomState() {
+		return scrambler.randomState();
+	}
+
+}
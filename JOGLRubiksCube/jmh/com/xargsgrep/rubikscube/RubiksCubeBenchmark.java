@@ -0,0 +1,95 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.xargsgrep.rubikscube.Cubie.Color;
+
+/*
+ * Benchmarks for the basic RubiksCube operations on scrambled cubes of several sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RubiksCubeBenchmark {
+	
+	private static final int NUM_ROTATIONS = 1024; // power of 2 so the index can be masked
+	
+	@Param({ "2", "3", "5", "10" })
+	int size;
+	
+	@Param({ "1", "2" })
+	long seed;
+	
+	private RubiksCube cube;
+	private Rotation[] rotations;
+	private CubiePosition[] positions;
+	private int index;
+	
+	@Setup
+	public void setup() {
+		Scrambler scrambler = new Scrambler(size, seed);
+		scrambler.randomMoves(NUM_ROTATIONS);
+		cube = new RubiksCube(size);
+		scrambler.applyTo(cube);
+		rotations = new Rotation[NUM_ROTATIONS];
+		for (int i=0; i<NUM_ROTATIONS; i++) rotations[i] = scrambler.getMove(i);
+		
+		// only the positions on the outside of the cube
+		List<CubiePosition> visible = new ArrayList<CubiePosition>();
+		for (int x=0; x<size; x++) {
+			for (int y=0; y<size; y++) {
+				for (int z=0; z<size; z++) {
+					if (cube.getVisibleFaces(x, y, z) != 0) visible.add(new CubiePosition(x, y, z));
+				}
+			}
+		}
+		positions = visible.toArray(new CubiePosition[visible.size()]);
+	}
+	
+	@Benchmark
+	public void applyRotation() {
+		cube.applyRotation(rotations[index++ & (NUM_ROTATIONS-1)]);
+	}
+	
+	@Benchmark
+	public RubiksCube getCopy() {
+		return cube.getCopy();
+	}
+	
+	@Benchmark
+	public boolean isPositionSolved() {
+		return cube.isPositionSolved(nextPosition());
+	}
+	
+	@Benchmark
+	public List<Color> getVisibleColors() {
+		return cube.getVisibleColors(nextPosition());
+	}
+	
+	private CubiePosition nextPosition() {
+		if (index >= positions.length) index = 0;
+		return positions[index++];
+	}
+
+}
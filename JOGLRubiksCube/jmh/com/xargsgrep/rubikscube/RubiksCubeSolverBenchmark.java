@@ -0,0 +1,84 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Benchmarks for the 3x3x3 solvers and for validating their solutions. The solver tables are loaded during setup so
+ * they aren't part of the measurement. The IDA* solver gets a short scramble since deep scrambles would just measure
+ * its time budget.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RubiksCubeSolverBenchmark {
+	
+	private static final int NUM_SCRAMBLE_MOVES = 100;
+	private static final int NUM_SHORT_SCRAMBLE_MOVES = 6;
+	
+	@Param({ "1", "2", "3" })
+	long seed;
+	
+	private RubiksCube scrambledCube;
+	private RubiksCube shortScrambledCube;
+	private List<Rotation> solution;
+	
+	@Setup
+	public void setup() {
+		Scrambler scrambler = new Scrambler(3, seed);
+		scrambledCube = scramble(scrambler, NUM_SCRAMBLE_MOVES);
+		shortScrambledCube = scramble(scrambler, NUM_SHORT_SCRAMBLE_MOVES);
+		solution = new LameRubiksCubeSolver(scrambledCube.getCopy()).getSolution();
+		
+		// generate or map the tables up front
+		new TwoPhaseRubiksCubeSolver(scrambledCube.getCopy()).getSolution();
+		new IDAStarRubiksCubeSolver(shortScrambledCube.getCopy()).getSolution();
+	}
+	
+	@Benchmark
+	public List<Rotation> lameSolver() {
+		return new LameRubiksCubeSolver(scrambledCube.getCopy()).getSolution();
+	}
+	
+	@Benchmark
+	public List<Rotation> twoPhaseSolver() {
+		return new TwoPhaseRubiksCubeSolver(scrambledCube.getCopy()).getSolution();
+	}
+	
+	@Benchmark
+	public List<Rotation> idaStarSolver() {
+		return new IDAStarRubiksCubeSolver(shortScrambledCube.getCopy()).getSolution();
+	}
+	
+	@Benchmark
+	public boolean isValidSolution() {
+		return RubiksCubeSolverTester.isValidSolution(scrambledCube.getCopy(), solution);
+	}
+	
+	private static RubiksCube scramble(Scrambler scrambler, int numMoves) {
+		RubiksCube cube = new RubiksCube(3);
+		scrambler.randomMoves(numMoves);
+		scrambler.applyTo(cube);
+		return cube;
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Benchmarks for generating random move scrambles of several cube sizes. Random state scrambles are benchmarked by
+ * RandomStateScramblerBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScramblerBenchmark {
+	
+	@Param({ "2", "3", "5", "10" })
+	int size;
+	
+	@Param({ "1", "2" })
+	long seed;
+	
+	@Param({ "25", "100" })
+	int numMoves;
+	
+	private Scrambler scrambler;
+	
+	@Setup
+	public void setup() {
+		scrambler = new Scrambler(size, seed);
+	}
+	
+	@Benchmark
+	public int randomMoves() {
+		return scrambler.randomMoves(numMoves);
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.List;
+
+/*
+ * Decorates another solver with a SolutionCache. If the cube's state is in the cache the cached solution is used,
+ * otherwise the wrapped solver finds a solution and it is added to the cache. Either way the solution is applied to the
+ * cube, the same as with any other solver.
+ *
+ * The cube's colors are remapped before it is looked up, the same as the wrapped solver would, so the cache is keyed
+ * by the state the solutions actually solve and a cube that has only been turned as a whole finds the solution of the
+ * cube it was turned from.
+ */
+public class CachingRubiksCubeSolver extends RubiksCubeSolver {
+	
+	private final RubiksCubeSolver solver;
+	private final SolutionCache cache;
+	
+	public CachingRubiksCubeSolver(RubiksCubeSolver solver, SolutionCache cache) {
+		super(solver.cube);
+		this.solver = solver;
+		this.cache = cache;
+	}
+	
+	@Override
+	public List<Rotation> getSolution() {
+		remapColors();
+		List<Rotation> solution = cache.get(cube);
+		if (solution != null) {
+			for (Rotation rotation : solution) addAndApplyRotation(rotation);
+			return rotations;
+		}
+		
+		RubiksCube state = cube.getCopy();
+		solution = solver.getSolution();
+		cache.put(state, solution);
+		rotations.addAll(solution);
+		return rotations;
+	}
+
+}
@@ -0,0 +1,292 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/*
+ * Builds the geometry of a cube as a list of quads, with the vertex positions and colors in reusable FloatBuffers
+ * ready to be drawn with a single glDrawArrays(GL_QUADS) call. Nothing here needs a GL context.
+ *
+ * Only the outside of the cube is built as cubies: the size^3 - (size-2)^3 cubies that have at least one facelet on the
+ * outside, each with a colored quad for every outward facing sticker, which makes 6*size^2 sticker quads. The black
+ * body of the cube only shows in the gaps between sections and where a turning section opens the plane between itself
+ * and its neighbor, so instead of a body quad for every hidden face of every cubie there is one black quad across the
+ * whole cube on each side of each of the size-1 planes between sections along each axis, 6*(size-1) body quads in
+ * all. Each one turns with the section on its side of the plane. While sections are turning around one axis the body
+ * quads of the other two axes would cut through the turning sections, so they're collapsed to nothing until the turn
+ * is over.
+ *
+ * Cubies have the same layout as in RubiksCubeJOGLRenderer: each cubie is 2 units wide, cubie centers are spacing
+ * units apart, the cube is centered on the origin and the front (z=0) section is at +z.
+ */
+public class CubeGeometry {
+	
+	public static final int VERTICES_PER_QUAD = 4;
+	public static final int FLOATS_PER_QUAD = VERTICES_PER_QUAD*3;
+	
+	// faces of a cubie in the order they're built, with the vertices of each face of a cubie centered on the origin
+	private static final int[] FACES = {
+		Cubie.FACELET_TOP, Cubie.FACELET_BOTTOM, Cubie.FACELET_FRONT, Cubie.FACELET_REAR, Cubie.FACELET_LEFT, Cubie.FACELET_RIGHT
+	};
+	private static final float[][] FACE_VERTICES = {
+		{  1,  1, -1,  -1,  1, -1,  -1,  1,  1,   1,  1,  1 }, // top
+		{  1, -1,  1,  -1, -1,  1,  -1, -1, -1,   1, -1, -1 }, // bottom
+		{  1,  1,  1,  -1,  1,  1,  -1, -1,  1,   1, -1,  1 }, // front
+		{  1, -1, -1,  -1, -1, -1,  -1,  1, -1,   1,  1, -1 }, // rear
+		{ -1,  1,  1,  -1,  1, -1,  -1, -1, -1,  -1, -1,  1 }, // left
+		{  1,  1, -1,   1,  1,  1,   1, -1,  1,   1, -1, -1 }  // right
+	};
+	// offset from a cubie to its neighbor on each face, in cube coordinates
+	private static final int[][] FACE_NEIGHBORS = { {0,1,0}, {0,-1,0}, {0,0,-1}, {0,0,1}, {-1,0,0}, {1,0,0} };
+	private static final float[] BLACK = { 0, 0, 0 };
+	// indexed by Color ordinal
+	private static final float[][] COLOR_RGB = {
+		{ 1, 1, 1 },    // white
+		{ 1, 1, 0 },    // yellow
+		{ 0, 1, 0 },    // green
+		{ 1, 0.5f, 0 }, // orange
+		{ 0, 0, 1 },    // blue
+		{ 1, 0, 0 }     // red
+	};
+	
+	private final int size;
+	private final float spacing;
+	
+	private final int numCubies;
+	private final int[] cubiePositions; // x, y, z of each shell cubie
+	private final int[] cubieQuads;     // index of the first quad of each cubie, plus the number of sticker quads at the end
+	
+	// sticker quads come first, followed by the body quads of the x, y and z planes. the two quads of each plane (the
+	// lower section's side first) are next to each other
+	private final int numStickerQuads;
+	private final int numQuads;
+	private final byte[] quadFaces;    // index into FACES of each sticker quad
+	private final int[] quadFacelets;  // facelet index (see MoveTable) of each sticker quad
+	
+	private final FloatBuffer vertices;
+	private final FloatBuffer colors;
+	
+	public CubeGeometry(int size, float spacing) {
+		this.size = size;
+		this.spacing = spacing;
+		
+		int interior = Math.max(0, size-2);
+		this.numCubies = size*size*size - interior*interior*interior;
+		this.cubiePositions = new int[numCubies*3];
+		this.cubieQuads = new int[numCubies+1];
+		this.numStickerQuads = 6*size*size;
+		this.numQuads = numStickerQuads + 6*(size-1);
+		this.quadFaces = new byte[numStickerQuads];
+		this.quadFacelets = new int[numStickerQuads];
+		
+		MoveTable table = MoveTable.forSize(size);
+		int cubie = 0, quad = 0;
+		for (int x=0; x<size; x++) {
+			for (int y=0; y<size; y++) {
+				for (int z=0; z<size; z++) {
+					if (!isShell(x, y, z)) continue;
+					cubiePositions[cubie*3]   = x;
+					cubiePositions[cubie*3+1] = y;
+					cubiePositions[cubie*3+2] = z;
+					cubieQuads[cubie++] = quad;
+					
+					for (int face=0; face<FACES.length; face++) {
+						int[] neighbor = FACE_NEIGHBORS[face];
+						int nx = x+neighbor[0], ny = y+neighbor[1], nz = z+neighbor[2];
+						if (nx >= 0 && ny >= 0 && nz >= 0 && nx < size && ny < size && nz < size) continue;
+						
+						quadFaces[quad] = (byte) face;
+						quadFacelets[quad] = table.getFaceletIndex(x, y, z, Integer.numberOfTrailingZeros(FACES[face]));
+						quad++;
+					}
+				}
+			}
+		}
+		cubieQuads[numCubies] = quad;
+		if (quad != numStickerQuads) throw new RuntimeException("Expected " + numStickerQuads + " sticker quads but built " + quad);
+		
+		this.vertices = newFloatBuffer(numQuads*FLOATS_PER_QUAD);
+		this.colors = newFloatBuffer(numQuads*FLOATS_PER_QUAD);
+	}
+	
+	public int getSize() {
+		return size;
+	}
+	
+	public int getNumCubies() {
+		return numCubies;
+	}
+	
+	public int getNumQuads() {
+		return numQuads;
+	}
+	
+	// returns the number of quads that are stickers, the rest are black body quads
+	public int getNumStickerQuads() {
+		return numStickerQuads;
+	}
+	
+	// x, y and z of every vertex, see buildVertices() and updateVertices()
+	public FloatBuffer getVertices() {
+		return vertices;
+	}
+	
+	// r, g and b of every vertex, see buildColors()
+	public FloatBuffer getColors() {
+		return colors;
+	}
+	
+	// fills the colors buffer with the colors of the cube's stickers
+	public void buildColors(RubiksCube cube) {
+		if (cube.getSize() != size) throw new RuntimeException("Expected a cube of size " + size + " but got " + cube.getSize());
+		
+		byte[] facelets = cube.getFacelets();
+		Cubie.Color[] palette = Cubie.Color.values();
+		colors.clear();
+		for (int quad=0; quad<numQuads; quad++) {
+			float[] rgb = (quad >= numStickerQuads) ? BLACK : getRGB(palette[facelets[quadFacelets[quad]]]);
+			for (int vertex=0; vertex<VERTICES_PER_QUAD; vertex++) colors.put(rgb);
+		}
+		colors.flip();
+	}
+	
+	// fills the vertices buffer with the position of every vertex. the angles (in degrees) are the current rotation
+	// of each section around the x, y and z axes, applied in the same order as RubiksCubeJOGLRenderer does
+	public void buildVertices(float[] columnAnglesX, float[] rowAnglesY, float[] faceAnglesZ) {
+		float[] rotation = new float[9];
+		vertices.clear();
+		for (int cubie=0; cubie<numCubies; cubie++) buildCubieVertices(cubie, columnAnglesX, rowAnglesY, faceAnglesZ, rotation);
+		buildBodyVertices(columnAnglesX, rowAnglesY, faceAnglesZ, rotation);
+	}
+	
+	// like buildVertices() but only the cubies in the flagged columns, rows and faces are rebuilt, which during an
+	// animation is just the turning sections, along with the body quads. the position and limit of the vertices buffer
+	// are set to the range of floats that was rebuilt, which is empty if nothing was flagged
+	public void updateVertices(float[] columnAnglesX, float[] rowAnglesY, float[] faceAnglesZ, boolean[] changedColumns, boolean[] changedRows, boolean[] changedFaces) {
+		float[] rotation = new float[9];
+		int firstQuad = numQuads, endQuad = 0;
+		vertices.clear();
+		for (int cubie=0; cubie<numCubies; cubie++) {
+			int x = cubiePositions[cubie*3], y = cubiePositions[cubie*3+1], z = cubiePositions[cubie*3+2];
+			if (!changedColumns[x] && !changedRows[y] && !changedFaces[z]) continue;
+			
+			buildCubieVertices(cubie, columnAnglesX, rowAnglesY, faceAnglesZ, rotation);
+			firstQuad = Math.min(firstQuad, cubieQuads[cubie]);
+			endQuad = Math.max(endQuad, cubieQuads[cubie+1]);
+		}
+		if (firstQuad < endQuad) {
+			// whether the body quads of an axis are collapsed depends on the other axes, so they're all rebuilt
+			buildBodyVertices(columnAnglesX, rowAnglesY, faceAnglesZ, rotation);
+			endQuad = numQuads;
+		}
+		
+		if (firstQuad >= endQuad) vertices.position(0).limit(0);
+		else vertices.limit(endQuad*FLOATS_PER_QUAD).position(firstQuad*FLOATS_PER_QUAD);
+	}
+	
+	// writes the vertices of one cubie in place, rotation is scratch space
+	private void buildCubieVertices(int cubie, float[] columnAnglesX, float[] rowAnglesY, float[] faceAnglesZ, float[] rotation) {
+		float t = (float) (size-1)/2;
+		int x = cubiePositions[cubie*3], y = cubiePositions[cubie*3+1], z = cubiePositions[cubie*3+2];
+		float cx = (x-t)*spacing, cy = (y-t)*spacing, cz = -(z-t)*spacing;
+		boolean rotated = getRotation(columnAnglesX[x], rowAnglesY[y], faceAnglesZ[z], rotation);
+		
+		int index = cubieQuads[cubie]*FLOATS_PER_QUAD;
+		for (int quad=cubieQuads[cubie]; quad<cubieQuads[cubie+1]; quad++) {
+			float[] face = FACE_VERTICES[quadFaces[quad]];
+			for (int i=0; i<face.length; i+=3) {
+				float vx = face[i] + cx, vy = face[i+1] + cy, vz = face[i+2] + cz;
+				if (rotated) {
+					vertices.put(index++, rotation[0]*vx + rotation[1]*vy + rotation[2]*vz);
+					vertices.put(index++, rotation[3]*vx + rotation[4]*vy + rotation[5]*vz);
+					vertices.put(index++, rotation[6]*vx + rotation[7]*vy + rotation[8]*vz);
+				}
+				else {
+					vertices.put(index++, vx);
+					vertices.put(index++, vy);
+					vertices.put(index++, vz);
+				}
+			}
+		}
+	}
+	
+	// writes the vertices of the body quads in place, rotation is scratch space. the quads of each plane span the whole
+	// cube and turn with the section on their side of the plane
+	private void buildBodyVertices(float[] columnAnglesX, float[] rowAnglesY, float[] faceAnglesZ, float[] rotation) {
+		float t = (float) (size-1)/2;
+		float extent = t*spacing + 1;
+		float[][] angles = { columnAnglesX, rowAnglesY, faceAnglesZ };
+		boolean[] turning = { isTurning(columnAnglesX), isTurning(rowAnglesY), isTurning(faceAnglesZ) };
+		float[] vertex = new float[3];
+		
+		int index = numStickerQuads*FLOATS_PER_QUAD;
+		for (int axis=0; axis<3; axis++) {
+			int u = (axis+1) % 3, v = (axis+2) % 3;
+			boolean collapsed = turning[u] || turning[v];
+			for (int plane=0; plane<size-1; plane++) {
+				float position = (plane+0.5f-t)*spacing;
+				if (axis == 2) position = -position; // the front (z=0) section is at +z
+				
+				for (int side=0; side<2; side++) {
+					float angle = angles[axis][plane+side];
+					boolean rotated = getRotation((axis == 0) ? angle : 0, (axis == 1) ? angle : 0, (axis == 2) ? angle : 0, rotation);
+					for (int corner=0; corner<VERTICES_PER_QUAD; corner++) {
+						vertex[axis] = position;
+						vertex[u] = collapsed ? 0 : ((corner < 2) ? extent : -extent);
+						vertex[v] = collapsed ? 0 : ((corner == 0 || corner == 3) ? extent : -extent);
+						if (rotated) {
+							vertices.put(index++, rotation[0]*vertex[0] + rotation[1]*vertex[1] + rotation[2]*vertex[2]);
+							vertices.put(index++, rotation[3]*vertex[0] + rotation[4]*vertex[1] + rotation[5]*vertex[2]);
+							vertices.put(index++, rotation[6]*vertex[0] + rotation[7]*vertex[1] + rotation[8]*vertex[2]);
+						}
+						else {
+							vertices.put(index++, vertex[0]);
+							vertices.put(index++, vertex[1]);
+							vertices.put(index++, vertex[2]);
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	private static boolean isTurning(float[] angles) {
+		for (float angle : angles) if (angle != 0) return true;
+		return false;
+	}
+	
+	// returns the shared rgb components of the color, which must not be modified
+	static float[] getRGB(Cubie.Color color) {
+		return COLOR_RGB[color.ordinal()];
+	}
+	
+	private boolean isShell(int x, int y, int z) {
+		int last = size-1;
+		return x == 0 || y == 0 || z == 0 || x == last || y == last || z == last;
+	}
+	
+	// sets rotation to the row major matrix Rx*Ry*Rz (the glRotatef() conventions), returns false if there is no rotation
+	static boolean getRotation(float angleX, float angleY, float angleZ, float[] rotation) {
+		if (angleX == 0 && angleY == 0 && angleZ == 0) return false;
+		
+		double ax = Math.toRadians(angleX), ay = Math.toRadians(angleY), az = Math.toRadians(angleZ);
+		float sx = (float) Math.sin(ax), cx = (float) Math.cos(ax);
+		float sy = (float) Math.sin(ay), cy = (float) Math.cos(ay);
+		float sz = (float) Math.sin(az), cz = (float) Math.cos(az);
+		
+		rotation[0] = cy*cz;             rotation[1] = -cy*sz;            rotation[2] = sy;
+		rotation[3] = sx*sy*cz + cx*sz;  rotation[4] = -sx*sy*sz + cx*cz; rotation[5] = -sx*cy;
+		rotation[6] = -cx*sy*cz + sx*sz; rotation[7] = cx*sy*sz + sx*cz;  rotation[8] = cx*cy;
+		return true;
+	}
+	
+	private static FloatBuffer newFloatBuffer(int numFloats) {
+		return ByteBuffer.allocateDirect(numFloats*4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+	}
+
+}
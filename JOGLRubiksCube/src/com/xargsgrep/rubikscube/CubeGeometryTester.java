@@ -0,0 +1,103 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.nio.FloatBuffer;
+
+/*
+ * Checks the geometry built by CubeGeometry without a GL context: the number of cubies and quads for cubes of size 1,
+ * 2, 3 and the specified size, that every sticker lies on the outside of the cube, that every body quad lies on a plane
+ * between two sections, and that the body quads of the other axes are collapsed while a section is turning.
+ *
+ * Usage: CubeGeometryTester [size]
+ */
+public class CubeGeometryTester {
+	
+	private static final int DEFAULT_SIZE = 50;
+	private static final float SPACING = RubiksCubeJOGLRenderer.CUBIE_TRANSLATION_FACTOR;
+	private static final float EPSILON = 1e-3f;
+	
+	private int failures = 0;
+	
+	public static void main(String[] args) {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+		
+		CubeGeometryTester tester = new CubeGeometryTester();
+		for (int testSize : new int[] { 1, 2, 3, size }) tester.test(testSize);
+		
+		System.out.println("Failures: " + tester.failures);
+		if (tester.failures > 0) throw new RuntimeException(tester.failures + " geometry checks failed");
+	}
+	
+	private void test(int size) {
+		CubeGeometry geometry = new CubeGeometry(size, SPACING);
+		int interior = Math.max(0, size-2);
+		check(size, "cubies", geometry.getNumCubies(), size*size*size - interior*interior*interior);
+		check(size, "sticker quads", geometry.getNumStickerQuads(), 6*size*size);
+		check(size, "quads", geometry.getNumQuads(), 6*size*size + 6*(size-1));
+		
+		float[] columnAnglesX = new float[size], rowAnglesY = new float[size], faceAnglesZ = new float[size];
+		geometry.buildVertices(columnAnglesX, rowAnglesY, faceAnglesZ);
+		float t = (float) (size-1)/2;
+		float extent = t*SPACING + 1;
+		
+		int offSurface = 0, offPlane = 0;
+		for (int quad=0; quad<geometry.getNumQuads(); quad++) {
+			if (quad < geometry.getNumStickerQuads()) {
+				if (getFlatAxis(geometry.getVertices(), quad, extent) < 0) offSurface++;
+			}
+			else {
+				// the quads of each plane along x, then y, then z, two to a plane
+				int body = quad - geometry.getNumStickerQuads();
+				int axis = body / (2*(size-1));
+				float position = Math.abs(((body % (2*(size-1)))/2 + 0.5f - t)*SPACING);
+				if (getFlatAxis(geometry.getVertices(), quad, position) != axis || getArea(geometry.getVertices(), quad) < 4*extent*extent - EPSILON) offPlane++;
+			}
+		}
+		check(size, "stickers off the surface", offSurface, 0);
+		check(size, "body quads off their plane", offPlane, 0);
+		
+		// turning the left column collapses the body quads of the rows and faces, but not those of the columns
+		columnAnglesX[0] = 30;
+		geometry.buildVertices(columnAnglesX, rowAnglesY, faceAnglesZ);
+		int collapsed = 0;
+		for (int quad=geometry.getNumStickerQuads(); quad<geometry.getNumQuads(); quad++) {
+			if (getArea(geometry.getVertices(), quad) < EPSILON) collapsed++;
+		}
+		check(size, "collapsed body quads while turning", collapsed, 4*(size-1));
+		
+		System.out.println("Size " + size + ": " + geometry.getNumCubies() + " cubies, " + geometry.getNumQuads() + " quads");
+	}
+	
+	private void check(int size, String name, int actual, int expected) {
+		if (actual == expected) return;
+		System.out.println("Size " + size + ": expected " + expected + " " + name + " but got " + actual);
+		failures++;
+	}
+	
+	// returns the axis along which every vertex of the quad is at +/-distance from the center, or -1 if there isn't one
+	private static int getFlatAxis(FloatBuffer vertices, int quad, float distance) {
+		for (int axis=0; axis<3; axis++) {
+			boolean flat = true;
+			float first = vertices.get(quad*CubeGeometry.FLOATS_PER_QUAD + axis);
+			for (int vertex=0; vertex<CubeGeometry.VERTICES_PER_QUAD; vertex++) {
+				float value = vertices.get(quad*CubeGeometry.FLOATS_PER_QUAD + vertex*3 + axis);
+				flat &= Math.abs(value - first) < EPSILON && Math.abs(Math.abs(value) - distance) < EPSILON;
+			}
+			if (flat) return axis;
+		}
+		return -1;
+	}
+	
+	// area of the quad, assuming it is a parallelogram
+	private static float getArea(FloatBuffer vertices, int quad) {
+		int i = quad*CubeGeometry.FLOATS_PER_QUAD;
+		float ax = vertices.get(i+3) - vertices.get(i), ay = vertices.get(i+4) - vertices.get(i+1), az = vertices.get(i+5) - vertices.get(i+2);
+		float bx = vertices.get(i+9) - vertices.get(i), by = vertices.get(i+10) - vertices.get(i+1), bz = vertices.get(i+11) - vertices.get(i+2);
+		float cx = ay*bz - az*by, cy = az*bx - ax*bz, cz = ax*by - ay*bx;
+		return (float) Math.sqrt(cx*cx + cy*cy + cz*cz);
+	}
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import static com.xargsgrep.rubikscube.RubiksCube.NUM_SIDES;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.xargsgrep.rubikscube.Rotation.Axis;
+import com.xargsgrep.rubikscube.Rotation.Direction;
+
+/*
+ * One of the 48 symmetries of a cube: the 24 whole cube rotations, each optionally combined with a reflection.
+ * A symmetry is stored as a signed permutation of the axes: axis j is mapped to axis getAxis(j), and is flipped
+ * if getSign(j) is -1.
+ *
+ * Applying a symmetry to a state moves every facelet to where the symmetry takes it, and then relabels the colors so
+ * that each face's solved color becomes the solved color of the face it was moved to. The result is the state seen
+ * from the symmetric point of view, so the solved state maps to itself and applying a rotation commutes with
+ * applying a symmetry: apply(cube after r) == apply(cube) after apply(r). A solution for a transformed state can
+ * be translated back into a solution for the original by applying the inverse symmetry to each of its rotations.
+ *
+ * getCanonicalSymmetry() picks the symmetry that maps a state to the smallest of its 48 symmetric states (comparing
+ * facelets in order), so symmetric states share a canonical representative. This works for cubes of any size.
+ */
+public class CubeSymmetry {
+	
+	public static final int NUM_SYMMETRIES = 48;
+	
+	private static final Axis[] AXES = Axis.values();
+	
+	// axis and sign of each side's outward normal, indexed by RubiksCube.SIDE_*
+	private static final int[] SIDE_AXES = { 2, 2, 0, 0, 1, 1 };
+	private static final int[] SIDE_SIGNS = { -1, 1, -1, 1, 1, -1 };
+	
+	// sign of the angle of a clockwise rotation around each axis, see MoveTable.buildCycles()
+	private static final int[] CLOCKWISE_SIGNS = { 1, 1, -1 };
+	
+	private static final int[][] AXIS_PERMUTATIONS = { {0,1,2}, {0,2,1}, {1,0,2}, {1,2,0}, {2,0,1}, {2,1,0} };
+	
+	private static final CubeSymmetry[] SYMMETRIES = new CubeSymmetry[NUM_SYMMETRIES];
+	static {
+		for (int i=0; i<NUM_SYMMETRIES; i++) {
+			int[] axes = AXIS_PERMUTATIONS[i/8];
+			int[] signs = { ((i & 1) == 0) ? 1 : -1, ((i & 2) == 0) ? 1 : -1, ((i & 4) == 0) ? 1 : -1 };
+			SYMMETRIES[i] = new CubeSymmetry(i, axes, signs);
+		}
+		for (CubeSymmetry symmetry : SYMMETRIES) {
+			for (CubeSymmetry other : SYMMETRIES) {
+				if (symmetry.compose(other).index == 0) symmetry.inverse = other;
+			}
+		}
+	}
+	
+	// facelet permutations of each symmetry, indexed by cube size and then symmetry. see getSourceFacelets()
+	private static final ConcurrentMap<Integer, int[][]> SOURCE_FACELETS = new ConcurrentHashMap<Integer, int[][]>();
+	
+	private final int index;
+	private final int[] axes;
+	private final int[] signs;
+	private final int determinant;
+	private final byte[] colors; // color ordinal -> color ordinal
+	private CubeSymmetry inverse;
+	
+	private CubeSymmetry(int index, int[] axes, int[] signs) {
+		this.index = index;
+		this.axes = axes;
+		this.signs = signs;
+		
+		boolean odd = (axes[0] > axes[1]) ^ (axes[0] > axes[2]) ^ (axes[1] > axes[2]);
+		this.determinant = (odd ? -1 : 1) * signs[0] * signs[1] * signs[2];
+		
+		this.colors = new byte[NUM_SIDES];
+		for (int side=0; side<NUM_SIDES; side++) {
+			colors[RubiksCube.SOLVED_STATE_COLORS[side].ordinal()] = (byte) RubiksCube.SOLVED_STATE_COLORS[getSide(side)].ordinal();
+		}
+	}
+	
+	// the identity is symmetry 0
+	public static CubeSymmetry get(int index) {
+		return SYMMETRIES[index];
+	}
+	
+	public int getIndex() {
+		return index;
+	}
+	
+	public Axis getAxis(Axis axis) {
+		return AXES[axes[axis.ordinal()]];
+	}
+	
+	public int getSign(Axis axis) {
+		return signs[axis.ordinal()];
+	}
+	
+	// true if this symmetry includes a reflection (turns a right handed cube into a left handed one)
+	public boolean isReflection() {
+		return determinant < 0;
+	}
+	
+	public CubeSymmetry getInverse() {
+		return inverse;
+	}
+	
+	// returns the symmetry that applies other first and then this symmetry
+	public CubeSymmetry compose(CubeSymmetry other) {
+		int[] composedAxes = new int[3], composedSigns = new int[3];
+		for (int j=0; j<3; j++) {
+			composedAxes[j] = axes[other.axes[j]];
+			composedSigns[j] = signs[other.axes[j]] * other.signs[j];
+		}
+		for (CubeSymmetry symmetry : SYMMETRIES) {
+			if (Arrays.equals(symmetry.axes, composedAxes) && Arrays.equals(symmetry.signs, composedSigns)) return symmetry;
+		}
+		throw new RuntimeException("Symmetries are not closed under composition");
+	}
+	
+	// returns the side that the specified side is moved to
+	public int getSide(int side) {
+		int axis = axes[SIDE_AXES[side]];
+		int sign = signs[SIDE_AXES[side]] * SIDE_SIGNS[side];
+		for (int s=0; s<NUM_SIDES; s++) {
+			if (SIDE_AXES[s] == axis && SIDE_SIGNS[s] == sign) return s;
+		}
+		throw new RuntimeException("Invalid side: " + side);
+	}
+	
+	// returns the rotation seen from the symmetric point of view, for a cube of the specified size
+	public Rotation apply(Rotation rotation, int size) {
+		int axis = rotation.getAxis().ordinal();
+		int sign = signs[axis];
+		int section = (sign > 0) ? rotation.getSection() : size - rotation.getSection() - rotation.getWidth();
+		
+		// the rotation's angle is multiplied by the determinant and flipped if the axis is flipped
+		Direction direction = rotation.getDirection();
+		if (CLOCKWISE_SIGNS[axis] * CLOCKWISE_SIGNS[axes[axis]] * determinant * sign < 0) direction = direction.reverse();
+		
+		return Rotation.valueOf(AXES[axes[axis]], section, rotation.getWidth(), direction);
+	}
+	
+	public List<Rotation> apply(List<Rotation> rotations, int size) {
+		List<Rotation> result = new ArrayList<Rotation>(rotations.size());
+		for (Rotation rotation : rotations) result.add(apply(rotation, size));
+		return result;
+	}
+	
+	// returns a new cube with the state seen from the symmetric point of view
+	public RubiksCube apply(RubiksCube cube) {
+		int[] source = getSourceFacelets(cube.getSize())[index];
+		byte[] facelets = cube.getFacelets();
+		byte[] result = new byte[facelets.length];
+		for (int i=0; i<result.length; i++) result[i] = colors[facelets[source[i]]];
+		return new RubiksCube(cube.getSize(), result);
+	}
+	
+	// returns the symmetry that maps the cube to its canonical state, the smallest of its symmetric states
+	public static CubeSymmetry getCanonicalSymmetry(RubiksCube cube) {
+		int[][] sources = getSourceFacelets(cube.getSize());
+		byte[] facelets = cube.getFacelets();
+		byte[] best = facelets.clone();
+		int bestIndex = 0;
+		
+		for (int s=1; s<NUM_SYMMETRIES; s++) {
+			int[] source = sources[s];
+			byte[] colors = SYMMETRIES[s].colors;
+			
+			// compare facelets in order until they differ, and copy the rest over if this state is smaller
+			int i = 0;
+			while (i < best.length && colors[facelets[source[i]]] == best[i]) i++;
+			if (i == best.length || colors[facelets[source[i]]] > best[i]) continue;
+			for (; i<best.length; i++) best[i] = colors[facelets[source[i]]];
+			bestIndex = s;
+		}
+		return SYMMETRIES[bestIndex];
+	}
+	
+	// returns the canonical state of the cube, see getCanonicalSymmetry()
+	public static RubiksCube canonicalize(RubiksCube cube) {
+		return getCanonicalSymmetry(cube).apply(cube);
+	}
+	
+	// for each symmetry, the facelet that each facelet's color is taken from when the symmetry is applied
+	private static int[][] getSourceFacelets(int size) {
+		int[][] sources = SOURCE_FACELETS.get(size);
+		if (sources == null) {
+			sources = buildSourceFacelets(size);
+			int[][] existing = SOURCE_FACELETS.putIfAbsent(size, sources);
+			if (existing != null) sources = existing;
+		}
+		return sources;
+	}
+	
+	private static int[][] buildSourceFacelets(int size) {
+		MoveTable table = MoveTable.forSize(size);
+		int[][] sources = new int[NUM_SYMMETRIES][table.getNumFacelets()];
+		int[] position = new int[3], moved = new int[3];
+		for (CubeSymmetry symmetry : SYMMETRIES) {
+			for (position[0]=0; position[0]<size; position[0]++) {
+				for (position[1]=0; position[1]<size; position[1]++) {
+					for (position[2]=0; position[2]<size; position[2]++) {
+						for (int j=0; j<3; j++) moved[symmetry.axes[j]] = (symmetry.signs[j] > 0) ? position[j] : size-1-position[j];
+						for (int side=0; side<NUM_SIDES; side++) {
+							if (!table.isOnSide(position[0], position[1], position[2], side)) continue;
+							int from = table.getFaceletIndex(position[0], position[1], position[2], side);
+							int to = table.getFaceletIndex(moved[0], moved[1], moved[2], symmetry.getSide(side));
+							sources[symmetry.index][to] = from;
+						}
+					}
+				}
+			}
+		}
+		return sources;
+	}
+
+}
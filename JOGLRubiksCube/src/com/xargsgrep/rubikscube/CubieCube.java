@@ -0,0 +1,498 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_BOTTOM;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_FRONT;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_LEFT;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_REAR;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_RIGHT;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_TOP;
+
+import java.util.Arrays;
+
+import com.xargsgrep.rubikscube.Rotation.Axis;
+import com.xargsgrep.rubikscube.Rotation.Direction;
+
+/*
+ * Cubie level representation of a 3x3x3 cube for use by search based solvers. Instead of colors this stores which
+ * corner/edge piece is in each corner/edge position (the permutation) and how each piece is twisted/flipped in its
+ * position (the orientation). Centers are assumed to be in their solved positions, so only the outer faces can be
+ * turned. Moves are applied using precomputed permutation tables.
+ *
+ * The front/rear (white/yellow) axis is used as the reference for orientations. A corner's orientation is the index
+ * of its front/rear colored facelet within its position's facelets. An edge's orientation is 0 if its front/rear
+ * colored facelet (or top/bottom colored facelet for edges in the middle face) is on the front/rear face (or top/bottom
+ * face for the middle face positions) and 1 otherwise.
+ */
+public class CubieCube {
+	
+	public static final int NUM_CORNERS = 8;
+	public static final int NUM_EDGES   = 12;
+	
+	// moves are numbered face*3 + power where power 0 is a clockwise quarter turn, 1 is a half turn and 2 is a counter clockwise quarter turn
+	public static final int FACE_LEFT   = 0;
+	public static final int FACE_RIGHT  = 1;
+	public static final int FACE_BOTTOM = 2;
+	public static final int FACE_TOP    = 3;
+	public static final int FACE_FRONT  = 4;
+	public static final int FACE_REAR   = 5;
+	public static final int NUM_FACES   = 6;
+	public static final int NUM_MOVES   = NUM_FACES*3;
+	
+	// sizes of the coordinates used by the two phase solver, see getTwist() etc
+	public static final int NUM_TWISTS                  = 2187;  // 3^7
+	public static final int NUM_FLIPS                   = 2048;  // 2^11
+	public static final int NUM_SLICE_EDGE_POSITIONS    = 495;   // 12 choose 4
+	public static final int NUM_CORNER_PERMUTATIONS     = 40320; // 8!
+	public static final int NUM_FACE_EDGE_PERMUTATIONS  = 40320; // 8!
+	public static final int NUM_SLICE_EDGE_PERMUTATIONS = 24;    // 4!
+	
+	private static final int FIRST_SLICE_EDGE = 8;
+	private static final int NUM_SLICE_EDGES  = 4;
+	
+	private static final Axis[] FACE_AXES    = { Axis.X, Axis.X, Axis.Y, Axis.Y, Axis.Z, Axis.Z };
+	private static final int[] FACE_SECTIONS = {
+		RubiksCube.COLUMN_LEFT, RubiksCube.COLUMN_RIGHT, RubiksCube.ROW_BOTTOM, RubiksCube.ROW_TOP, RubiksCube.FACE_FRONT, RubiksCube.FACE_REAR
+	};
+	
+	// conversions between moves and rotations, the move table is indexed by rotation id
+	private static final Rotation[] MOVE_ROTATIONS = new Rotation[NUM_MOVES];
+	private static final int[] ROTATION_MOVES = new int[Rotation.getNumRotations(3)];
+	static {
+		Arrays.fill(ROTATION_MOVES, -1);
+		Direction[] powers = { Direction.CLOCKWISE, Direction.HALF_TURN, Direction.COUNTER_CLOCKWISE };
+		for (int move=0; move<NUM_MOVES; move++) {
+			MOVE_ROTATIONS[move] = Rotation.valueOf(FACE_AXES[move/3], FACE_SECTIONS[move/3], powers[move%3]);
+			ROTATION_MOVES[MOVE_ROTATIONS[move].getId()] = move;
+		}
+	}
+	
+	// front corners, then rear corners
+	private static final int[][] CORNER_POSITIONS = {
+		{0, 0, 0}, {2, 0, 0}, {0, 2, 0}, {2, 2, 0},
+		{0, 0, 2}, {2, 0, 2}, {0, 2, 2}, {2, 2, 2}
+	};
+	
+	// front edges, then rear edges, then the edges in the middle face (which are always 8-11)
+	private static final int[][] EDGE_POSITIONS = {
+		{1, 0, 0}, {0, 1, 0}, {2, 1, 0}, {1, 2, 0},
+		{1, 0, 2}, {0, 1, 2}, {2, 1, 2}, {1, 2, 2},
+		{0, 0, 1}, {2, 0, 1}, {0, 2, 1}, {2, 2, 1}
+	};
+	
+	// facelet indices of each position, starting with the reference facelet. corner facelets are ordered
+	// the same way around every corner so that twists add up consistently
+	private static final int[][] CORNER_FACELETS = new int[NUM_CORNERS][3];
+	private static final int[][] EDGE_FACELETS   = new int[NUM_EDGES][2];
+	
+	// colors of each piece in the same order as the facelets of its solved position
+	private static final byte[][] CORNER_COLORS = new byte[NUM_CORNERS][3];
+	private static final byte[][] EDGE_COLORS   = new byte[NUM_EDGES][2];
+	
+	// permutation and orientation change of each move, see applyMove()
+	private static final byte[][] CORNER_MOVE_PERMUTATIONS  = new byte[NUM_MOVES][NUM_CORNERS];
+	private static final byte[][] CORNER_MOVE_ORIENTATIONS  = new byte[NUM_MOVES][NUM_CORNERS];
+	private static final byte[][] EDGE_MOVE_PERMUTATIONS    = new byte[NUM_MOVES][NUM_EDGES];
+	private static final byte[][] EDGE_MOVE_ORIENTATIONS    = new byte[NUM_MOVES][NUM_EDGES];
+	
+	static {
+		MoveTable table = MoveTable.forSize(3);
+		RubiksCube solved = new RubiksCube(3);
+		byte[] facelets = solved.getFacelets();
+		
+		for (int i=0; i<NUM_CORNERS; i++) {
+			int x = CORNER_POSITIONS[i][0], y = CORNER_POSITIONS[i][1], z = CORNER_POSITIONS[i][2];
+			int zSide = (z == 0) ? SIDE_FRONT : SIDE_REAR;
+			int xSide = (x == 0) ? SIDE_LEFT : SIDE_RIGHT;
+			int ySide = (y == 0) ? SIDE_BOTTOM : SIDE_TOP;
+			
+			// order the other two facelets so that every corner is read in the same rotational direction,
+			// ie so that the normals of the three facelets form a right handed basis
+			boolean xFirst = (getNormal(zSide)[2] * getNormal(xSide)[0] * getNormal(ySide)[1]) > 0;
+			int[] sides = xFirst ? new int[] { zSide, xSide, ySide } : new int[] { zSide, ySide, xSide };
+			for (int k=0; k<3; k++) {
+				CORNER_FACELETS[i][k] = table.getFaceletIndex(x, y, z, sides[k]);
+				CORNER_COLORS[i][k] = facelets[CORNER_FACELETS[i][k]];
+			}
+		}
+		
+		for (int i=0; i<NUM_EDGES; i++) {
+			int x = EDGE_POSITIONS[i][0], y = EDGE_POSITIONS[i][1], z = EDGE_POSITIONS[i][2];
+			int[] sides;
+			if (z != 1) sides = new int[] { (z == 0) ? SIDE_FRONT : SIDE_REAR, (x == 1) ? ((y == 0) ? SIDE_BOTTOM : SIDE_TOP) : ((x == 0) ? SIDE_LEFT : SIDE_RIGHT) };
+			else sides = new int[] { (y == 0) ? SIDE_BOTTOM : SIDE_TOP, (x == 0) ? SIDE_LEFT : SIDE_RIGHT };
+			for (int k=0; k<2; k++) {
+				EDGE_FACELETS[i][k] = table.getFaceletIndex(x, y, z, sides[k]);
+				EDGE_COLORS[i][k] = facelets[EDGE_FACELETS[i][k]];
+			}
+		}
+		
+		// read the effect of each move off of a solved cube that the move has been applied to
+		for (int move=0; move<NUM_MOVES; move++) {
+			RubiksCube cube = new RubiksCube(3);
+			cube.applyRotation(getRotation(move));
+			CubieCube moveCube = new CubieCube(cube);
+			CORNER_MOVE_PERMUTATIONS[move] = moveCube.cp;
+			CORNER_MOVE_ORIENTATIONS[move] = moveCube.co;
+			EDGE_MOVE_PERMUTATIONS[move] = moveCube.ep;
+			EDGE_MOVE_ORIENTATIONS[move] = moveCube.eo;
+		}
+	}
+	
+	final byte[] cp = new byte[NUM_CORNERS]; // cp[i] is the corner piece in corner position i
+	final byte[] co = new byte[NUM_CORNERS]; // co[i] is the twist (0-2) of the corner piece in corner position i
+	final byte[] ep = new byte[NUM_EDGES];   // ep[i] is the edge piece in edge position i
+	final byte[] eo = new byte[NUM_EDGES];   // eo[i] is the flip (0-1) of the edge piece in edge position i
+	
+	// inverses of cp and ep, so pieces can be found without searching for them. code that writes to cp or ep directly
+	// must call updateLocations() afterwards
+	final byte[] cl = new byte[NUM_CORNERS]; // cl[i] is the corner position of corner piece i
+	final byte[] el = new byte[NUM_EDGES];   // el[i] is the edge position of edge piece i
+	
+	private final byte[] tmp = new byte[NUM_EDGES];
+	
+	// creates a solved cube
+	public CubieCube() {
+		for (int i=0; i<NUM_CORNERS; i++) cp[i] = cl[i] = (byte) i;
+		for (int i=0; i<NUM_EDGES; i++) ep[i] = el[i] = (byte) i;
+	}
+	
+	public CubieCube(CubieCube cube) {
+		set(cube);
+	}
+	
+	// creates the cubie representation of a 3x3x3 cube. the centers of the cube must be in their solved positions
+	public CubieCube(RubiksCube cube) {
+		if (cube.getSize() != 3)
+			throw new RuntimeException(getClass().getName() + " only supports 3x3x3 cubes");
+		
+		byte[] facelets = cube.getFacelets();
+		if (!isCentersSolved(facelets))
+			throw new RuntimeException("Centers must be in their solved positions");
+		
+		for (int i=0; i<NUM_CORNERS; i++) {
+			byte c0 = facelets[CORNER_FACELETS[i][0]], c1 = facelets[CORNER_FACELETS[i][1]], c2 = facelets[CORNER_FACELETS[i][2]];
+			int twist = 0;
+			while (twist < 3 && !isFrontOrRearColor(facelets[CORNER_FACELETS[i][twist]])) twist++;
+			if (twist == 3) throw new RuntimeException("Invalid corner at position " + i);
+			
+			byte[] colors = (twist == 0) ? new byte[] { c0, c1, c2 } : ((twist == 1) ? new byte[] { c1, c2, c0 } : new byte[] { c2, c0, c1 });
+			cp[i] = (byte) findPiece(CORNER_COLORS, colors);
+			co[i] = (byte) twist;
+		}
+		
+		for (int i=0; i<NUM_EDGES; i++) {
+			byte c0 = facelets[EDGE_FACELETS[i][0]], c1 = facelets[EDGE_FACELETS[i][1]];
+			int piece = findPiece(EDGE_COLORS, new byte[] { c0, c1 });
+			if (piece >= 0) {
+				ep[i] = (byte) piece;
+				eo[i] = 0;
+			}
+			else {
+				ep[i] = (byte) findPiece(EDGE_COLORS, new byte[] { c1, c0 });
+				eo[i] = 1;
+			}
+		}
+		
+		for (int i=0; i<NUM_CORNERS; i++) if (cp[i] < 0) throw new RuntimeException("Invalid corner at position " + i);
+		for (int i=0; i<NUM_EDGES; i++) if (ep[i] < 0) throw new RuntimeException("Invalid edge at position " + i);
+		updateLocations();
+	}
+	
+	public void set(CubieCube cube) {
+		System.arraycopy(cube.cp, 0, cp, 0, NUM_CORNERS);
+		System.arraycopy(cube.co, 0, co, 0, NUM_CORNERS);
+		System.arraycopy(cube.ep, 0, ep, 0, NUM_EDGES);
+		System.arraycopy(cube.eo, 0, eo, 0, NUM_EDGES);
+		System.arraycopy(cube.cl, 0, cl, 0, NUM_CORNERS);
+		System.arraycopy(cube.el, 0, el, 0, NUM_EDGES);
+	}
+	
+	// rebuilds cl and el from cp and ep
+	void updateLocations() {
+		for (int i=0; i<NUM_CORNERS; i++) cl[cp[i]] = (byte) i;
+		for (int i=0; i<NUM_EDGES; i++) el[ep[i]] = (byte) i;
+	}
+	
+	// returns a 3x3x3 RubiksCube with the same state as this cube
+	public RubiksCube toRubiksCube() {
+		byte[] facelets = new RubiksCube(3).getFacelets().clone();
+		for (int i=0; i<NUM_CORNERS; i++) {
+			for (int k=0; k<3; k++) facelets[CORNER_FACELETS[i][(k + co[i]) % 3]] = CORNER_COLORS[cp[i]][k];
+		}
+		for (int i=0; i<NUM_EDGES; i++) {
+			for (int k=0; k<2; k++) facelets[EDGE_FACELETS[i][(k + eo[i]) % 2]] = EDGE_COLORS[ep[i]][k];
+		}
+		return new RubiksCube(3, facelets);
+	}
+	
+	public void applyMove(int move) {
+		byte[] perm = CORNER_MOVE_PERMUTATIONS[move];
+		byte[] ori = CORNER_MOVE_ORIENTATIONS[move];
+		for (int i=0; i<NUM_CORNERS; i++) tmp[i] = cp[perm[i]];
+		for (int i=0; i<NUM_CORNERS; i++) cl[cp[i] = tmp[i]] = (byte) i;
+		for (int i=0; i<NUM_CORNERS; i++) tmp[i] = (byte) ((co[perm[i]] + ori[i]) % 3);
+		for (int i=0; i<NUM_CORNERS; i++) co[i] = tmp[i];
+		
+		perm = EDGE_MOVE_PERMUTATIONS[move];
+		ori = EDGE_MOVE_ORIENTATIONS[move];
+		for (int i=0; i<NUM_EDGES; i++) tmp[i] = ep[perm[i]];
+		for (int i=0; i<NUM_EDGES; i++) el[ep[i] = tmp[i]] = (byte) i;
+		for (int i=0; i<NUM_EDGES; i++) tmp[i] = (byte) (eo[perm[i]] ^ ori[i]);
+		for (int i=0; i<NUM_EDGES; i++) eo[i] = tmp[i];
+	}
+	
+	public void applyMoves(int[] moves, int length) {
+		for (int i=0; i<length; i++) applyMove(moves[i]);
+	}
+	
+	public int getCornerPiece(int position)       { return cp[position]; }
+	public int getCornerOrientation(int position) { return co[position]; }
+	public int getEdgePiece(int position)         { return ep[position]; }
+	public int getEdgeOrientation(int position)   { return eo[position]; }
+	
+	// returns the position of the specified corner piece
+	public int findCorner(int piece) {
+		return cl[piece];
+	}
+	
+	// returns the position of the specified edge piece
+	public int findEdge(int piece) {
+		return el[piece];
+	}
+	
+	public boolean isSolved() {
+		for (int i=0; i<NUM_CORNERS; i++) if (cp[i] != i || co[i] != 0) return false;
+		for (int i=0; i<NUM_EDGES; i++) if (ep[i] != i || eo[i] != 0) return false;
+		return true;
+	}
+	
+	// returns true if this state can be reached by turning the faces of a cube
+	public boolean isSolvable() {
+		int twist = 0, flip = 0;
+		for (int i=0; i<NUM_CORNERS; i++) twist += co[i];
+		for (int i=0; i<NUM_EDGES; i++) flip += eo[i];
+		if (twist % 3 != 0 || flip % 2 != 0) return false;
+		if (!isPermutation(cp) || !isPermutation(ep)) return false;
+		return getParity(cp) == getParity(ep);
+	}
+	
+	/*
+	 * Coordinates. Each of these maps part of the state of the cube to a number in [0, NUM_*) that is 0 when that part
+	 * is solved. The set methods are the inverses, and only change the part of the state that the coordinate covers.
+	 */
+	
+	// orientations of the first 7 corners in base 3. the last one is determined by the others
+	public int getTwist() {
+		int twist = 0;
+		for (int i=0; i<NUM_CORNERS-1; i++) twist = twist*3 + co[i];
+		return twist;
+	}
+	
+	public void setTwist(int twist) {
+		int sum = 0;
+		for (int i=NUM_CORNERS-2; i>=0; i--) {
+			co[i] = (byte) (twist % 3);
+			sum += co[i];
+			twist /= 3;
+		}
+		co[NUM_CORNERS-1] = (byte) ((3 - sum%3) % 3);
+	}
+	
+	// orientations of the first 11 edges in base 2. the last one is determined by the others
+	public int getFlip() {
+		int flip = 0;
+		for (int i=0; i<NUM_EDGES-1; i++) flip = flip*2 + eo[i];
+		return flip;
+	}
+	
+	public void setFlip(int flip) {
+		int sum = 0;
+		for (int i=NUM_EDGES-2; i>=0; i--) {
+			eo[i] = (byte) (flip % 2);
+			sum += eo[i];
+			flip /= 2;
+		}
+		eo[NUM_EDGES-1] = (byte) (sum % 2);
+	}
+	
+	// which 4 of the edge positions hold the middle face edges (ignoring their order), ranked as a combination.
+	// positions are counted from the last one so that the solved state is 0
+	public int getSliceEdgePositions() {
+		int rank = 0, k = 0;
+		for (int q=0; q<NUM_EDGES; q++) {
+			if (ep[NUM_EDGES-1-q] >= FIRST_SLICE_EDGE) rank += binomial(q, ++k);
+		}
+		return rank;
+	}
+	
+	public void setSliceEdgePositions(int rank) {
+		Arrays.fill(ep, (byte) -1);
+		for (int k=NUM_SLICE_EDGES; k>0; k--) {
+			int q = k-1;
+			while (binomial(q+1, k) <= rank) q++;
+			rank -= binomial(q, k);
+			ep[NUM_EDGES-1-q] = (byte) (FIRST_SLICE_EDGE + k-1);
+		}
+		byte piece = 0;
+		for (int i=0; i<NUM_EDGES; i++) if (ep[i] < 0) ep[i] = piece++;
+		updateLocations();
+	}
+	
+	public int getCornerPermutation() {
+		return getPermutationRank(cp, 0, NUM_CORNERS);
+	}
+	
+	public void setCornerPermutation(int rank) {
+		setPermutationRank(cp, 0, NUM_CORNERS, rank);
+		updateLocations();
+	}
+	
+	// permutation of the edges in the front and rear faces. only meaningful when the middle face edges are in the middle face
+	public int getFaceEdgePermutation() {
+		return getPermutationRank(ep, 0, FIRST_SLICE_EDGE);
+	}
+	
+	public void setFaceEdgePermutation(int rank) {
+		setPermutationRank(ep, 0, FIRST_SLICE_EDGE, rank);
+		updateLocations();
+	}
+	
+	// permutation of the edges in the middle face. only meaningful when the middle face edges are in the middle face
+	public int getSliceEdgePermutation() {
+		return getPermutationRank(ep, FIRST_SLICE_EDGE, NUM_SLICE_EDGES);
+	}
+	
+	public void setSliceEdgePermutation(int rank) {
+		setPermutationRank(ep, FIRST_SLICE_EDGE, NUM_SLICE_EDGES, rank);
+		updateLocations();
+	}
+	
+	// returns the rotation for the specified move
+	public static Rotation getRotation(int move) {
+		return MOVE_ROTATIONS[move];
+	}
+	
+	// returns the move for the specified rotation, or -1 if it doesn't turn a single outer face
+	public static int getMove(Rotation rotation) {
+		int id = rotation.getId();
+		return (id < ROTATION_MOVES.length) ? ROTATION_MOVES[id] : -1;
+	}
+	
+	public static int getInverseMove(int move) {
+		return (move/3)*3 + (2 - move%3);
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		CubieCube other = (CubieCube) obj;
+		return Arrays.equals(cp, other.cp) && Arrays.equals(co, other.co) && Arrays.equals(ep, other.ep) && Arrays.equals(eo, other.eo);
+	}
+	
+	@Override
+	public int hashCode() {
+		int result = Arrays.hashCode(cp);
+		result = 31*result + Arrays.hashCode(co);
+		result = 31*result + Arrays.hashCode(ep);
+		result = 31*result + Arrays.hashCode(eo);
+		return result;
+	}
+	
+	// ranks perm[offset..offset+length), which must hold the values offset..offset+length-1, in a mixed radix
+	// system where each digit is the number of later elements that are smaller
+	private static int getPermutationRank(byte[] perm, int offset, int length) {
+		int rank = 0;
+		for (int i=0; i<length; i++) {
+			int smaller = 0;
+			for (int j=i+1; j<length; j++) if (perm[offset+j] < perm[offset+i]) smaller++;
+			rank = rank*(length-i) + smaller;
+		}
+		return rank;
+	}
+	
+	private static void setPermutationRank(byte[] perm, int offset, int length, int rank) {
+		int[] digits = new int[length];
+		for (int i=length-1; i>=0; i--) {
+			digits[i] = rank % (length-i);
+			rank /= (length-i);
+		}
+		int unused = (1 << length) - 1;
+		for (int i=0; i<length; i++) {
+			// the element is the digits[i]'th smallest of the ones that haven't been used yet
+			int value = -1;
+			for (int n=digits[i]; n>=0; n--) {
+				value++;
+				while ((unused & (1 << value)) == 0) value++;
+			}
+			unused &= ~(1 << value);
+			perm[offset+i] = (byte) (offset + value);
+		}
+	}
+	
+	private static int binomial(int n, int k) {
+		if (k > n) return 0;
+		int result = 1;
+		for (int i=1; i<=k; i++) result = result*(n-k+i)/i;
+		return result;
+	}
+	
+	private static boolean isCentersSolved(byte[] facelets) {
+		MoveTable table = MoveTable.forSize(3);
+		RubiksCube solved = new RubiksCube(3);
+		int[][] centers = { {1, 1, 0, SIDE_FRONT}, {1, 1, 2, SIDE_REAR}, {0, 1, 1, SIDE_LEFT}, {2, 1, 1, SIDE_RIGHT}, {1, 2, 1, SIDE_TOP}, {1, 0, 1, SIDE_BOTTOM} };
+		for (int[] center : centers) {
+			int idx = table.getFaceletIndex(center[0], center[1], center[2], center[3]);
+			if (facelets[idx] != solved.getFacelets()[idx]) return false;
+		}
+		return true;
+	}
+	
+	private static boolean isFrontOrRearColor(byte color) {
+		return color == Cubie.SOLVED_STATE_FRONT_COLOR.ordinal() || color == Cubie.SOLVED_STATE_REAR_COLOR.ordinal();
+	}
+	
+	private static int findPiece(byte[][] pieceColors, byte[] colors) {
+		for (int piece=0; piece<pieceColors.length; piece++) {
+			if (Arrays.equals(pieceColors[piece], colors)) return piece;
+		}
+		return -1;
+	}
+	
+	private static boolean isPermutation(byte[] perm) {
+		boolean[] seen = new boolean[perm.length];
+		for (byte piece : perm) {
+			if (piece < 0 || piece >= perm.length || seen[piece]) return false;
+			seen[piece] = true;
+		}
+		return true;
+	}
+	
+	// returns 0 for an even permutation and 1 for an odd one
+	private static int getParity(byte[] perm) {
+		int parity = 0;
+		for (int i=0; i<perm.length; i++) {
+			for (int j=i+1; j<perm.length; j++) {
+				if (perm[i] > perm[j]) parity ^= 1;
+			}
+		}
+		return parity;
+	}
+	
+	private static int[] getNormal(int side) {
+		switch (side) {
+			case SIDE_FRONT:  return new int[] {  0,  0, -1 };
+			case SIDE_REAR:   return new int[] {  0,  0,  1 };
+			case SIDE_LEFT:   return new int[] { -1,  0,  0 };
+			case SIDE_RIGHT:  return new int[] {  1,  0,  0 };
+			case SIDE_BOTTOM: return new int[] {  0, -1,  0 };
+			default:          return new int[] {  0,  1,  0 };
+		}
+	}
+
+}
@@ -28,6 +28,16 @@ public class CubiePosition {
 	public boolean isInFaceMiddle()   { return this.z == RubiksCube.FACE_MIDDLE;   }
 	public boolean isInFaceRear()     { return this.z == RubiksCube.FACE_REAR;     }
 	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + x;
+		result = prime * result + y;
+		result = prime * result + z;
+		return result;
+	}
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) return true;
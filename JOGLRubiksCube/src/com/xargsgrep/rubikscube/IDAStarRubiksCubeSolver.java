@@ -0,0 +1,153 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Solver for a 3x3x3 Rubik's Cube that uses iterative deepening A* (IDA*) to find the shortest solution in
+ * quarter turns. The heuristic is the maximum of a pattern database for all 8 corners and two for 6 edges each,
+ * which is admissible, so the first solution found is optimal.
+ *
+ * Optimal solutions for deep scrambles can take a very long time to find, so the search has a time budget. The
+ * TwoPhaseRubiksCubeSolver solution is used as the starting upper bound, and if the budget runs out before the search
+ * finds anything shorter then that solution is applied instead. The budget starts once the pattern databases and the
+ * two phase tables have been loaded.
+ */
+public class IDAStarRubiksCubeSolver extends RubiksCubeSolver {
+	
+	public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+	
+	private static final int TIME_CHECK_INTERVAL = 1 << 12; // expanded nodes between checks of the clock
+	private static final int FOUND = -1;
+	private static final int TIMED_OUT = -2;
+	
+	private final long timeBudgetMillis;
+	
+	private Heuristics heuristics;
+	private CubieCube searchCube;
+	private int[] path;
+	private int solutionLength;
+	private long deadline;
+	private long nodes;
+	
+	public IDAStarRubiksCubeSolver(RubiksCube cube) {
+		this(cube, DEFAULT_TIME_BUDGET_MILLIS);
+	}
+	
+	public IDAStarRubiksCubeSolver(RubiksCube cube, long timeBudgetMillis) {
+		super(cube);
+		this.timeBudgetMillis = timeBudgetMillis;
+		
+		if (cube.getSize() != 3)
+			throw new RuntimeException(this.getClass().getName() + " only supports solving 3x3x3 cubes");
+	}
+	
+	@Override
+	public List<Rotation> getSolution() {
+		// loading or generating the tables doesn't count against the time budget
+		heuristics = Heuristics.getInstance();
+		TwoPhaseRubiksCubeSolver.Tables.getInstance();
+		deadline = System.currentTimeMillis() + timeBudgetMillis;
+		List<Rotation> bestSolution = new TwoPhaseRubiksCubeSolver(cube.getCopy(), TwoPhaseRubiksCubeSolver.DEFAULT_TARGET_LENGTH, timeBudgetMillis).getSolution();
+		int bestLength = 0; // in quarter turns
+		for (Rotation rotation : bestSolution) bestLength += rotation.isHalfTurn() ? 2 : 1;
+		
+		remapColors();
+		
+		searchCube = new CubieCube(cube);
+		path = new int[bestLength];
+		nodes = 0;
+		
+		// only look for solutions that are shorter than the one we already have
+		int maxDepth = bestLength - 1;
+		int threshold = heuristics.getDistance(searchCube);
+		while (threshold <= maxDepth) {
+			int result = search(0, threshold, -1, -1);
+			if (result == FOUND) {
+				for (int i=0; i<solutionLength; i++) addAndApplyRotation(CubieCube.getRotation(path[i]));
+				return rotations;
+			}
+			if (result == TIMED_OUT) break;
+			threshold = result;
+		}
+		
+		for (Rotation rotation : bestSolution) addAndApplyRotation(rotation);
+		return rotations;
+	}
+	
+	// returns FOUND, TIMED_OUT or the smallest estimated total cost that exceeded the threshold
+	private int search(int depth, int threshold, int lastMove, int secondLastMove) {
+		int estimate = depth + heuristics.getDistance(searchCube);
+		if (estimate > threshold) return estimate;
+		if (searchCube.isSolved()) {
+			solutionLength = depth;
+			return FOUND;
+		}
+		
+		if (++nodes % TIME_CHECK_INTERVAL == 0 && System.currentTimeMillis() > deadline) return TIMED_OUT;
+		
+		int min = Integer.MAX_VALUE;
+		for (int move : PatternDatabase.QUARTER_TURN_MOVES) {
+			if (isRedundant(move, lastMove, secondLastMove)) continue;
+			
+			searchCube.applyMove(move);
+			path[depth] = move;
+			int result = search(depth+1, threshold, move, lastMove);
+			searchCube.applyMove(CubieCube.getInverseMove(move));
+			
+			if (result == FOUND || result == TIMED_OUT) return result;
+			if (result < min) min = result;
+		}
+		return min;
+	}
+	
+	// prunes sequences that can be written with fewer moves, or that are the same as another sequence with the moves reordered
+	private boolean isRedundant(int move, int lastMove, int secondLastMove) {
+		if (lastMove < 0) return false;
+		
+		int face = move/3, lastFace = lastMove/3;
+		if (face == lastFace) {
+			// undoing the last move, or a third quarter turn of the same face in the same direction
+			if (move == CubieCube.getInverseMove(lastMove)) return true;
+			if (move == lastMove && move == secondLastMove) return true;
+		}
+		else if (face/2 == lastFace/2 && face < lastFace) {
+			// opposite faces commute, so only search them in one order
+			return true;
+		}
+		return false;
+	}
+	
+	/*
+	 * Pattern databases used for the heuristic. They're shared by all solvers and generated the first time they're needed.
+	 */
+	static class Heuristics {
+		private static Heuristics instance;
+		
+		private final List<PatternDatabase> databases = new ArrayList<PatternDatabase>();
+		
+		private Heuristics() {
+			databases.add(PatternDatabase.forCorners(0, 1, 2, 3, 4, 5, 6, 7));
+			databases.add(PatternDatabase.forEdges(0, 1, 2, 3, 4, 5));
+			databases.add(PatternDatabase.forEdges(6, 7, 8, 9, 10, 11));
+		}
+		
+		static synchronized Heuristics getInstance() {
+			if (instance == null) instance = new Heuristics();
+			return instance;
+		}
+		
+		int getDistance(CubieCube cube) {
+			int distance = 0;
+			for (PatternDatabase database : databases) {
+				distance = Math.max(distance, database.getDistance(cube));
+			}
+			return distance;
+		}
+	}
+
+}
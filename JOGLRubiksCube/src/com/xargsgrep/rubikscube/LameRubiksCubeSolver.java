@@ -19,12 +19,6 @@ import com.xargsgrep.rubikscube.Rotation.Direction;
  */
 public class LameRubiksCubeSolver extends RubiksCubeSolver {
 	
-	public static final CubiePosition CENTER_FRONT              = new CubiePosition(1, 1, 0);
-	public static final CubiePosition CENTER_REAR               = new CubiePosition(1, 1, 2);
-	public static final CubiePosition CENTER_TOP                = new CubiePosition(1, 2, 1);
-	public static final CubiePosition CENTER_BOTTOM             = new CubiePosition(1, 0, 1);
-	public static final CubiePosition CENTER_LEFT               = new CubiePosition(0, 1, 1);
-	public static final CubiePosition CENTER_RIGHT              = new CubiePosition(2, 1, 1);
 	public static final CubiePosition EDGE_FRONT_LEFT           = new CubiePosition(0, 1, 0);
 	public static final CubiePosition EDGE_FRONT_RIGHT          = new CubiePosition(2, 1, 0);
 	public static final CubiePosition EDGE_FRONT_TOP            = new CubiePosition(1, 2, 0);
@@ -55,7 +49,7 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 	
 	@Override
 	public List<Rotation> getSolution() {
-		positionCenters(); // this is just to get the cube into a known orientation (white on the front and green on the top)
+		remapColors(); // this is just to solve relative to a known orientation (white on the front and green on the top)
 		solveStep1(); // front face cross
 		solveStep2(); // front face corners
 		solveStep3(); // middle face edges
@@ -66,37 +60,6 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 		return rotations;
 	}
 	
-	private void positionCenters() {
-		// move white center cubie to front face
-		if (cube.getCubie(CENTER_REAR).rearColor == Color.WHITE) {
-			addAndApplyRotation(new Rotation(Axis.X, RubiksCube.COLUMN_MIDDLE, Direction.COUNTER_CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.X, RubiksCube.COLUMN_MIDDLE, Direction.COUNTER_CLOCKWISE));
-		}
-		else if (cube.getCubie(CENTER_TOP).topColor == Color.WHITE) {
-			addAndApplyRotation(new Rotation(Axis.X, RubiksCube.COLUMN_MIDDLE, Direction.COUNTER_CLOCKWISE));
-		}
-		else if (cube.getCubie(CENTER_BOTTOM).bottomColor == Color.WHITE) {
-			addAndApplyRotation(new Rotation(Axis.X, RubiksCube.COLUMN_MIDDLE, Direction.CLOCKWISE));
-		}
-		else if (cube.getCubie(CENTER_LEFT).leftColor == Color.WHITE) {
-			addAndApplyRotation(new Rotation(Axis.Y, RubiksCube.ROW_MIDDLE, Direction.COUNTER_CLOCKWISE));
-		}
-		else if (cube.getCubie(CENTER_RIGHT).rightColor == Color.WHITE) {
-			addAndApplyRotation(new Rotation(Axis.Y, RubiksCube.ROW_MIDDLE, Direction.CLOCKWISE));
-		}
-		
-		// move green center cubie to top face		if (cube.getCubie(CENTER_BOTTOM).bottomColor == Color.GREEN) {
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_MIDDLE, Direction.COUNTER_CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_MIDDLE, Direction.COUNTER_CLOCKWISE));
-		}
-		else if (cube.getCubie(CENTER_LEFT).leftColor == Color.GREEN) {
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_MIDDLE, Direction.CLOCKWISE));
-		}
-		else if (cube.getCubie(CENTER_RIGHT).rightColor == Color.GREEN) {
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_MIDDLE, Direction.COUNTER_CLOCKWISE));
-		}
-	}
-	
 	/*********************************************************************************************************************************************************/
 	
 	private void solveStep1() {
@@ -127,27 +90,27 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 				else if (source.isInRowTop())      section2 = RubiksCube.COLUMN_RIGHT;
 				Direction direction2 = (source.isInColumnLeft() || source.isInRowTop()) ? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE;
 				
-				addAndApplyRotation(new Rotation(axis1, section1, direction1));
-				addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_FRONT, Direction.CLOCKWISE));
-				addAndApplyRotation(new Rotation(axis2, section2, direction2));
-				addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_FRONT, Direction.COUNTER_CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(axis1, section1, direction1));
+				addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_FRONT, Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(axis2, section2, direction2));
+				addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_FRONT, Direction.COUNTER_CLOCKWISE));
 			}
 			else if (source.isInFaceFront()) {
 				// edge is in the front face, get it into the rear face
 				if (source.isInColumnMiddle()) {
-					addAndApplyRotation(new Rotation(Axis.Y, source.y, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(Axis.Y, source.y, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.Y, source.y, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.Y, source.y, Direction.CLOCKWISE));
 				}
 				else if (source.isInRowMiddle()) {
-					addAndApplyRotation(new Rotation(Axis.X, source.x, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(Axis.X, source.x, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.X, source.x, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.X, source.x, Direction.CLOCKWISE));
 				}
 			}
 			else if (source.isInFaceMiddle()) {
 				// edge is in the middle face, get it into the rear face
-				addAndApplyRotation(new Rotation(Axis.X, source.x, (source.y == 0) ? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE));
-				addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-				addAndApplyRotation(new Rotation(Axis.X, source.x, (source.y == 0) ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.X, source.x, (source.y == 0) ? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.X, source.x, (source.y == 0) ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE));
 			}
 			else if (source.isInFaceRear()) {
 				// edge is in the rear face, get it into the correct position in the front face
@@ -155,17 +118,17 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 					Direction direction = ((destination.isInColumnLeft() && source.isInRowTop()) || (destination.isInColumnRight() && source.isInRowBottom()))
 						? Direction.COUNTER_CLOCKWISE
 						: Direction.CLOCKWISE;
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, direction));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, direction));
 				}
 				else if ((source.x == destination.x && source.y != destination.y) || (source.x != destination.x && source.y == destination.y)) {
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
 				}
 				
 				Axis axis = destination.isInRowMiddle() ? Axis.X : Axis.Y;
 				int section = destination.isInRowMiddle() ? destination.x : destination.y;
-				addAndApplyRotation(new Rotation(axis, section, Direction.CLOCKWISE));
-				addAndApplyRotation(new Rotation(axis, section, Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(axis, section, Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(axis, section, Direction.CLOCKWISE));
 			}
 		}
 	}
@@ -188,9 +151,9 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 			
 			if (source.isInFaceFront()) {
 				// corner is in the front face, get it into the rear face
-				addAndApplyRotation(new Rotation(Axis.X, source.x, source.isInRowTop() ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE));
-				addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-				addAndApplyRotation(new Rotation(Axis.X, source.x, source.isInRowTop() ? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.X, source.x, source.isInRowTop() ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.X, source.x, source.isInRowTop() ? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE));
 			}
 			else if (source.isInFaceRear() && (source.x == destination.x && source.y == destination.y)) {
 				// corner is in the rear face and is aligned with the appropriate front corner, solve it
@@ -204,10 +167,10 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 					int section = (source.x == source.y) ? source.x : source.y;
 					Direction direction = (source.isInRowTop()) ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE;
 					
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-					addAndApplyRotation(new Rotation(axis, section, direction));
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(axis, section, direction.reverse()));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction.reverse()));
 				}
 				else if ((source.isInColumnLeft() && source.isInRowBottom() && sourceCubie.leftColor == Color.WHITE)
 						|| (source.isInColumnRight() && source.isInRowBottom() && sourceCubie.bottomColor == Color.WHITE)
@@ -218,41 +181,41 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 					int section = (source.x == source.y) ? source.y : source.x;
 					Direction direction = (source.isInColumnLeft()) ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE;
 					
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(axis, section, direction));
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-					addAndApplyRotation(new Rotation(axis, section, direction.reverse()));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction.reverse()));
 				}
 				else if (sourceCubie.rearColor == Color.WHITE) {
 					Axis axis = (source.x == source.y) ? Axis.X : Axis.Y;
 					int section = (source.x == source.y) ? source.x : source.y;
 					Direction direction = (source.isInRowBottom()) ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE;
 					
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(axis, section, direction));
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-					addAndApplyRotation(new Rotation(axis, section, direction.reverse()));
-					addAndApplyRotation(new Rotation(axis, section, direction.reverse()));
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(axis, section, direction));
-					addAndApplyRotation(new Rotation(axis, section, direction));
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(axis, section, direction.reverse()));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction.reverse()));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction.reverse()));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(axis, section, direction.reverse()));
 				}
 			}
 			else if (source.isInFaceRear() && (source.x != destination.x || source.y != destination.y)) {
 				// corner is in the rear face but is not aligned with the appropriate front corner, align the cornerd in both x and y
 				if (source.x != destination.x && source.y != destination.y) {
 					// corners are not aligned in either x or y
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
 				}
 				else if (source.x != destination.x || source.y != destination.y) {
 					// corners are aligned in either x or y
 					Direction direction = ((destination.isInColumnLeft() && source.isInRowTop()) || (destination.isInColumnRight() && source.isInRowBottom()))
 						? Direction.COUNTER_CLOCKWISE
 						: Direction.CLOCKWISE;
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, direction));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, direction));
 				}
 			}
 		}
@@ -289,8 +252,8 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 				else if (color == Color.BLUE)   tmpDestination = EDGE_REAR_BOTTOM;
 				
 				if ((source.x == tmpDestination.x) || (source.y == tmpDestination.y)) {
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
 				}
 				else {
 					Direction direction = ((source.isInRowTop() && tmpDestination.isInColumnRight())
@@ -299,7 +262,7 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 							|| (source.isInColumnLeft() && tmpDestination.isInRowTop()))
 						? Direction.CLOCKWISE
 						: Direction.COUNTER_CLOCKWISE;
-					addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, direction));
+					addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, direction));
 				}
 			}
 			else if (source.isInFaceMiddle()) {
@@ -368,14 +331,14 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 	}
 	
 	private void moveRearEdgeToMiddle(Direction zDirection, Axis axis1, int section1, Direction direction1, Axis axis2, int section2, Direction direction2) {
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, zDirection));
-		addAndApplyRotation(new Rotation(axis1, section1, direction1));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, zDirection.reverse()));
-		addAndApplyRotation(new Rotation(axis1, section1, direction1.reverse()));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, zDirection.reverse()));
-		addAndApplyRotation(new Rotation(axis2, section2, direction2));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, zDirection));
-		addAndApplyRotation(new Rotation(axis2, section2, direction2.reverse()));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, zDirection));
+		addAndApplyRotation(Rotation.valueOf(axis1, section1, direction1));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, zDirection.reverse()));
+		addAndApplyRotation(Rotation.valueOf(axis1, section1, direction1.reverse()));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, zDirection.reverse()));
+		addAndApplyRotation(Rotation.valueOf(axis2, section2, direction2));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, zDirection));
+		addAndApplyRotation(Rotation.valueOf(axis2, section2, direction2.reverse()));
 	}
 	
 	// returns true if the middle edge can be solved from the given position
@@ -431,12 +394,12 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 			direction2 = position.isInColumnLeft() ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE;
 		}
 			
-		addAndApplyRotation(new Rotation(axis1, section1, direction1));
-		addAndApplyRotation(new Rotation(axis2, section2, direction2));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis2, section2, direction2.reverse()));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis1, section1, direction1.reverse()));
+		addAndApplyRotation(Rotation.valueOf(axis1, section1, direction1));
+		addAndApplyRotation(Rotation.valueOf(axis2, section2, direction2));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis2, section2, direction2.reverse()));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis1, section1, direction1.reverse()));
 	}
 	
 	private boolean isStep4Solved() {
@@ -457,21 +420,21 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 		
 		while (!isStep5Solved()) {
 			if (cube.isPositionSolved(EDGE_REAR_LEFT)) {
-				addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-				addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
 			}
 			else if (cube.isPositionSolved(EDGE_REAR_RIGHT)) {
-				addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+				addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
 			}
 			
-			addAndApplyRotation(new Rotation(Axis.X, RubiksCube.COLUMN_RIGHT, Direction.CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.X, RubiksCube.COLUMN_RIGHT, Direction.COUNTER_CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.X, RubiksCube.COLUMN_RIGHT, Direction.CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-			addAndApplyRotation(new Rotation(Axis.X, RubiksCube.COLUMN_RIGHT, Direction.COUNTER_CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.X, RubiksCube.COLUMN_RIGHT, Direction.CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.X, RubiksCube.COLUMN_RIGHT, Direction.COUNTER_CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.X, RubiksCube.COLUMN_RIGHT, Direction.CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.X, RubiksCube.COLUMN_RIGHT, Direction.COUNTER_CLOCKWISE));
 			
 			step5SolveTopRearEdge();
 		}
@@ -479,7 +442,7 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 	
 	private void step5SolveTopRearEdge() {
 		while (cube.getCubie(EDGE_REAR_TOP).topColor != Cubie.SOLVED_STATE_TOP_COLOR) {
-			addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+			addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
 		}
 	}
 	
@@ -533,14 +496,14 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 	}
 	
 	private void step6RotateRearCorners(Axis axis, int section1, int section2, Direction direction) {
-		addAndApplyRotation(new Rotation(axis, section1, direction));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis, section2, direction));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis, section1, direction.reverse()));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis, section2, direction.reverse()));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section1, direction));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section2, direction));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section1, direction.reverse()));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section2, direction.reverse()));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
 	}
 	
 	private CubiePosition findRearCornerInCorrectPosition() {
@@ -604,25 +567,25 @@ public class LameRubiksCubeSolver extends RubiksCubeSolver {
 			section2 = RubiksCube.ROW_TOP;
 		}
 		
-		addAndApplyRotation(new Rotation(axis, section1, direction));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis, section1, direction.reverse()));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section1, direction));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section1, direction.reverse()));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.COUNTER_CLOCKWISE));
 		
-		addAndApplyRotation(new Rotation(axis, section1, direction));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis, section1, direction.reverse()));
+		addAndApplyRotation(Rotation.valueOf(axis, section1, direction));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section1, direction.reverse()));
 		
-		addAndApplyRotation(new Rotation(axis, section2, direction));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis, section2, direction.reverse()));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section2, direction));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section2, direction.reverse()));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
 		
-		addAndApplyRotation(new Rotation(axis, section2, direction));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-		addAndApplyRotation(new Rotation(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
-		addAndApplyRotation(new Rotation(axis, section2, direction.reverse()));
+		addAndApplyRotation(Rotation.valueOf(axis, section2, direction));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(Axis.Z, RubiksCube.FACE_REAR, Direction.CLOCKWISE));
+		addAndApplyRotation(Rotation.valueOf(axis, section2, direction.reverse()));
 	}
 	
 	/*********************************************************************************************************************************************************/
@@ -0,0 +1,127 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Lock free queue of move sequences for one producer thread and one consumer thread. RubiksCubeJOGLRenderer's input
+ * handlers offer sequences (a single key press, a scramble, a solution) and display() polls for the next move whenever
+ * the previous animation has finished, so no thread ever waits for another.
+ *
+ * Sequences are iterators that are only advanced by the consumer, which lets them be infinite (scrambling) or compute
+ * their moves when they are reached (solving from the state the earlier sequences leave behind).
+ *
+ * Every offered sequence gets a ticket, its position in the queue. The producer can cancel everything offered so far,
+ * including the sequence the consumer is in the middle of, with a single atomic write: the consumer skips every
+ * sequence with a ticket below the cancel mark the next time it polls. Moves that have already been polled aren't
+ * affected, so the animation in progress still finishes.
+ *
+ * offer(), cancel() and isPending() must only be called by the producer thread and poll() and peek() by the consumer
+ * thread.
+ */
+class MoveQueue {
+	
+	private final Iterator<Rotation>[] sequences;
+	private final int mask;
+	
+	// tickets of the next sequence to offer, the next sequence to poll and the first sequence that isn't cancelled
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong cancelMark = new AtomicLong();
+	// ticket of the first sequence that hasn't been finished by the consumer
+	private final AtomicLong finished = new AtomicLong();
+	
+	// owned by the consumer
+	private Iterator<Rotation> current;
+	private long currentTicket;
+	private Rotation next; // taken from the current sequence by peek()
+	
+	// capacity is rounded up to a power of 2
+	public MoveQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity-1)) << 1;
+		@SuppressWarnings("unchecked")
+		Iterator<Rotation>[] sequences = (Iterator<Rotation>[]) new Iterator<?>[size];
+		this.sequences = sequences;
+		this.mask = size-1;
+	}
+	
+	// queues a single move, see offer(Iterator)
+	public long offer(Rotation rotation) {
+		return offer(Collections.singletonList(rotation).iterator());
+	}
+	
+	// queues a sequence of moves behind the ones that are already queued. returns the sequence's ticket, or -1 if
+	// the queue is full
+	public long offer(Iterator<Rotation> sequence) {
+		long ticket = tail.get();
+		if (ticket - head.get() == sequences.length) return -1;
+		sequences[(int) ticket & mask] = sequence;
+		tail.lazySet(ticket+1); // publishes the sequence to the consumer
+		return ticket;
+	}
+	
+	// drops every sequence offered so far, including the one the consumer is in the middle of
+	public void cancel() {
+		cancelMark.set(tail.get());
+	}
+	
+	// returns true if the sequence with the ticket has neither been finished nor cancelled. a sequence is finished as
+	// soon as its last move has been polled
+	public boolean isPending(long ticket) {
+		return ticket >= 0 && ticket < tail.get() && ticket >= cancelMark.get() && ticket >= finished.get();
+	}
+	
+	// returns the move that poll() would return next if it belongs to the same sequence as the last move polled,
+	// otherwise null. never moves on to the next sequence, so sequences that compute their moves when they're reached
+	// aren't started before the moves ahead of them have been dealt with
+	public Rotation peek() {
+		if (next == null || currentTicket < cancelMark.get()) {
+			next = null;
+			if (current == null || currentTicket < cancelMark.get() || !current.hasNext()) return null;
+			next = current.next();
+		}
+		return next;
+	}
+	
+	// returns the next move, or null if there are no moves left
+	public Rotation poll() {
+		if (next != null) {
+			Rotation rotation = next;
+			next = null;
+			if (currentTicket >= cancelMark.get()) return finishIfLast(rotation);
+		}
+		
+		while (true) {
+			long mark = cancelMark.get();
+			if (current != null && currentTicket >= mark && current.hasNext()) return finishIfLast(current.next());
+			current = null;
+			
+			// skip over cancelled sequences, freeing their slots
+			long ticket = head.get();
+			for (; ticket < mark && ticket < tail.get(); ticket++) sequences[(int) ticket & mask] = null;
+			if (ticket == tail.get()) {
+				head.lazySet(ticket);
+				finished.lazySet(ticket);
+				return null;
+			}
+			
+			current = sequences[(int) ticket & mask];
+			currentTicket = ticket;
+			sequences[(int) ticket & mask] = null;
+			head.lazySet(ticket+1); // frees the slot for the producer
+			finished.lazySet(ticket);
+		}
+	}
+	
+	// marks the current sequence as finished if the move that was just taken from it was its last one
+	private Rotation finishIfLast(Rotation rotation) {
+		if (!current.hasNext()) finished.lazySet(currentTicket+1);
+		return rotation;
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.xargsgrep.rubikscube.Rotation.Axis;
+import com.xargsgrep.rubikscube.Rotation.Direction;
+
+/*
+ * Shortens a sequence of rotations without changing its effect on the cube. Rotations around the same axis commute,
+ * so each run of rotations around one axis is replaced by the net number of quarter turns of each of its sections:
+ * inverse pairs cancel, repeated turns merge (two quarter turns become a half turn) and turns of parallel sections
+ * are grouped by section. Adjacent sections that end up with the same turn are folded into a single wide rotation.
+ * When a run cancels out completely the runs on either side of it are merged as well.
+ *
+ * Folding equal sections isn't always the shortest way to turn the sections of a run (X1 2 X0w3' folds to three
+ * rotations but X0w2 X0' does the same in two), so when it isn't the run is rebuilt from the differences between the
+ * turns of adjacent sections instead. A wide rotation changes exactly two of those differences, the ones at either end
+ * of it, so the fewest rotations come from splitting the differences into as many groups that add up to no turn as
+ * possible. The optimized sequence is never longer than the original.
+ */
+public class MoveSequenceOptimizer {
+	
+	private MoveSequenceOptimizer() { }
+	
+	public static List<Rotation> optimize(List<Rotation> rotations, int size) {
+		// stack of runs of rotations around the same axis. quarterTurns[section] is the net number of clockwise
+		// quarter turns (0-3) of each section
+		List<Axis> axes = new ArrayList<Axis>();
+		List<int[]> quarterTurns = new ArrayList<int[]>();
+		
+		for (Rotation rotation : rotations) {
+			int top = axes.size()-1;
+			if (top < 0 || axes.get(top) != rotation.getAxis()) {
+				axes.add(rotation.getAxis());
+				quarterTurns.add(new int[size]);
+				top++;
+			}
+			
+			int[] turns = quarterTurns.get(top);
+			for (int section=rotation.getSection(); section<rotation.getSection()+rotation.getWidth(); section++) {
+				turns[section] = (turns[section] + rotation.getDirection().getQuarterTurns()) % 4;
+			}
+			if (isIdentity(turns)) {
+				axes.remove(top);
+				quarterTurns.remove(top);
+			}
+		}
+		
+		List<Rotation> optimized = new ArrayList<Rotation>(rotations.size());
+		List<Rotation> folded = new ArrayList<Rotation>();
+		List<Rotation> grouped = new ArrayList<Rotation>();
+		for (int i=0; i<axes.size(); i++) {
+			folded.clear();
+			grouped.clear();
+			addFoldedRotations(axes.get(i), quarterTurns.get(i), folded);
+			addGroupedRotations(axes.get(i), quarterTurns.get(i), grouped);
+			optimized.addAll((grouped.size() < folded.size()) ? grouped : folded);
+		}
+		return optimized;
+	}
+	
+	// one rotation for each run of adjacent sections with the same turn
+	private static void addFoldedRotations(Axis axis, int[] turns, List<Rotation> rotations) {
+		int section = 0;
+		while (section < turns.length) {
+			int width = 1;
+			while (section+width < turns.length && turns[section+width] == turns[section]) width++;
+			if (turns[section] != 0) rotations.add(Rotation.valueOf(axis, section, width, Direction.fromQuarterTurns(turns[section])));
+			section += width;
+		}
+	}
+	
+	// the fewest rotations that turn each section by turns[section]. differences[i] is the turn of section i minus the
+	// turn of section i-1 (sections outside the cube don't turn), and a group of differences that adds up to no turn is
+	// made by a chain of one rotation less than the size of the group. pairs (a quarter turn each way or two half turns)
+	// are taken first, then a half turn with two quarter turns the same way, then four quarter turns the same way
+	private static void addGroupedRotations(Axis axis, int[] turns, List<Rotation> rotations) {
+		List<List<Integer>> boundaries = new ArrayList<List<Integer>>(); // boundaries with each difference (1-3)
+		for (int i=0; i<4; i++) boundaries.add(new ArrayList<Integer>());
+		for (int boundary=0; boundary<=turns.length; boundary++) {
+			int before = (boundary > 0) ? turns[boundary-1] : 0;
+			int after = (boundary < turns.length) ? turns[boundary] : 0;
+			boundaries.get((after - before + 4) % 4).add(boundary);
+		}
+		List<Integer> clockwise = boundaries.get(1), halfTurns = boundaries.get(2), counterClockwise = boundaries.get(3);
+		
+		while (!clockwise.isEmpty() && !counterClockwise.isEmpty()) addChain(axis, turns, rotations, clockwise.remove(0), counterClockwise.remove(0));
+		while (halfTurns.size() >= 2) addChain(axis, turns, rotations, halfTurns.remove(0), halfTurns.remove(0));
+		
+		// the differences add up to no turn, so whatever is left is all quarter turns one way and at most one half turn
+		List<Integer> quarterTurns = clockwise.isEmpty() ? counterClockwise : clockwise;
+		if (!halfTurns.isEmpty()) addChain(axis, turns, rotations, halfTurns.remove(0), quarterTurns.remove(0), quarterTurns.remove(0));
+		while (!quarterTurns.isEmpty()) addChain(axis, turns, rotations, quarterTurns.remove(0), quarterTurns.remove(0), quarterTurns.remove(0), quarterTurns.remove(0));
+	}
+	
+	// adds the rotations between consecutive boundaries of a group, each of which turns its sections by the
+	// differences before it in the group
+	private static void addChain(Axis axis, int[] turns, List<Rotation> rotations, Integer ... group) {
+		Arrays.sort(group);
+		int turn = 0;
+		for (int i=0; i<group.length-1; i++) {
+			int boundary = group[i];
+			int before = (boundary > 0) ? turns[boundary-1] : 0;
+			turn = (turn + turns[boundary] - before + 4) % 4;
+			rotations.add(Rotation.valueOf(axis, boundary, group[i+1] - boundary, Direction.fromQuarterTurns(turn)));
+		}
+	}
+	
+	private static boolean isIdentity(int[] turns) {
+		for (int turn : turns) if (turn != 0) return false;
+		return true;
+	}
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import static com.xargsgrep.rubikscube.RubiksCube.NUM_SIDES;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_BOTTOM;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_FRONT;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_LEFT;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_REAR;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_RIGHT;
+import static com.xargsgrep.rubikscube.RubiksCube.SIDE_TOP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.xargsgrep.rubikscube.Cubie.Color;
+import com.xargsgrep.rubikscube.Rotation.Axis;
+
+/*
+ * Facelet permutations for every rotation of a cube of a given size. There is one table per cube size and it is
+ * shared by every cube of that size in the JVM. The permutation for a slice is built the first time that slice
+ * is rotated.
+ * 
+ * The permutation of a slice is stored as a list of facelet index 4-cycles: a clockwise rotation moves the facelet
+ * at cycles[i] to cycles[i+1], cycles[i+1] to cycles[i+2], cycles[i+2] to cycles[i+3] and cycles[i+3] back to
+ * cycles[i]. A counter clockwise rotation walks the same cycles backwards, so one table covers both directions.
+ *
+ * The table also holds the Zobrist keys used to hash cube states: a random 64-bit key for every (facelet, color) pair.
+ * The hash of a state is the xor of the keys of its facelets, so a rotation only changes the hash by the keys of the
+ * facelets it moves. The keys come from a fixed seed, so hashes are the same in every JVM.
+ */
+class MoveTable {
+	
+	private static final ConcurrentMap<Integer, MoveTable> TABLES = new ConcurrentHashMap<Integer, MoveTable>();
+	
+	private static final int NUM_COLORS = Color.values().length;
+	private static final long ZOBRIST_SEED = 0x5275626978L;
+	
+	private final int size;
+	private final AtomicReferenceArray<int[]> cycles; // indexed by axis*size + section
+	private final long[] zobristKeys; // indexed by facelet*NUM_COLORS + color
+	
+	private MoveTable(int size) {
+		this.size = size;
+		this.cycles = new AtomicReferenceArray<int[]>(Axis.values().length*size);
+		this.zobristKeys = new long[getNumFacelets()*NUM_COLORS];
+		SplittableRandom random = new SplittableRandom(ZOBRIST_SEED + size);
+		for (int i=0; i<zobristKeys.length; i++) zobristKeys[i] = random.nextLong();
+	}
+	
+	public static MoveTable forSize(int size) {
+		MoveTable table = TABLES.get(size);
+		if (table == null) {
+			MoveTable newTable = new MoveTable(size);
+			table = TABLES.putIfAbsent(size, newTable);
+			if (table == null) table = newTable;
+		}
+		return table;
+	}
+	
+	public int getSize() {
+		return size;
+	}
+	
+	public int getNumFacelets() {
+		return NUM_SIDES*size*size;
+	}
+	
+	// applies the specified rotation to the facelets (of a cube of this table's size) in place
+	// rotates width adjacent slices starting at section by the specified number of clockwise quarter turns (1-3).
+	// the slices' cycles are disjoint so every facelet is moved directly to its final position
+	public void apply(byte[] facelets, Axis axis, int section, int width, int quarterTurns) {
+		byte tmp;
+		for (int s=section; s<section+width; s++) {
+			int[] cycles = getCycles(axis, s);
+			switch (quarterTurns) {
+				case 1:
+					for (int i=0; i<cycles.length; i+=4) {
+						tmp = facelets[cycles[i+3]];
+						facelets[cycles[i+3]] = facelets[cycles[i+2]];
+						facelets[cycles[i+2]] = facelets[cycles[i+1]];
+						facelets[cycles[i+1]] = facelets[cycles[i]];
+						facelets[cycles[i]]   = tmp;
+					}
+					break;
+				case 2:
+					for (int i=0; i<cycles.length; i+=4) {
+						tmp = facelets[cycles[i]];
+						facelets[cycles[i]]   = facelets[cycles[i+2]];
+						facelets[cycles[i+2]] = tmp;
+						tmp = facelets[cycles[i+1]];
+						facelets[cycles[i+1]] = facelets[cycles[i+3]];
+						facelets[cycles[i+3]] = tmp;
+					}
+					break;
+				case 3:
+					for (int i=0; i<cycles.length; i+=4) {
+						tmp = facelets[cycles[i]];
+						facelets[cycles[i]]   = facelets[cycles[i+1]];
+						facelets[cycles[i+1]] = facelets[cycles[i+2]];
+						facelets[cycles[i+2]] = facelets[cycles[i+3]];
+						facelets[cycles[i+3]] = tmp;
+					}
+					break;
+				default:
+					throw new RuntimeException("Invalid number of quarter turns: " + quarterTurns);
+			}
+		}
+	}
+	
+	// returns the Zobrist hash of the facelets (of a cube of this table's size)
+	public long getHash(byte[] facelets) {
+		long hash = 0;
+		for (int i=0; i<facelets.length; i++) hash ^= zobristKeys[i*NUM_COLORS + facelets[i]];
+		return hash;
+	}
+	
+	// returns the xor of the Zobrist keys of the facelets that are moved by rotating width adjacent slices starting at
+	// section. xor'ing this into a cube's hash before and after the rotation updates the hash for the rotation
+	public long getHashOfSlices(byte[] facelets, Axis axis, int section, int width) {
+		long hash = 0;
+		for (int s=section; s<section+width; s++) {
+			int[] cycles = getCycles(axis, s);
+			for (int i=0; i<cycles.length; i++) hash ^= zobristKeys[cycles[i]*NUM_COLORS + facelets[cycles[i]]];
+		}
+		return hash;
+	}
+	
+	// returns the facelet index cycles for the specified slice, building them if this is the first time they're needed
+	public int[] getCycles(Axis axis, int section) {
+		int idx = axis.ordinal()*size + section;
+		int[] sliceCycles = cycles.get(idx);
+		if (sliceCycles == null) {
+			// two threads may race to build the same slice, both will build identical cycles so either one can win
+			cycles.compareAndSet(idx, null, buildCycles(axis, section));
+			sliceCycles = cycles.get(idx);
+		}
+		return sliceCycles;
+	}
+	
+	public boolean isOnSide(int x, int y, int z, int side) {
+		switch (side) {
+			case SIDE_FRONT:  return z == 0;
+			case SIDE_REAR:   return z == size-1;
+			case SIDE_LEFT:   return x == 0;
+			case SIDE_RIGHT:  return x == size-1;
+			case SIDE_TOP:    return y == size-1;
+			case SIDE_BOTTOM: return y == 0;
+			default:          return false;
+		}
+	}
+	
+	// front/rear facelets are indexed by (x,y), left/right by (y,z) and top/bottom by (x,z)
+	public int getFaceletIndex(int x, int y, int z, int side) {
+		int offset = side*size*size;
+		if (side == SIDE_FRONT || side == SIDE_REAR) return offset + x*size + y;
+		else if (side == SIDE_LEFT || side == SIDE_RIGHT) return offset + y*size + z;
+		else return offset + x*size + z;
+	}
+	
+	private int[] buildCycles(Axis axis, int section) {
+		int j = size-1;
+		int[] position = new int[4];
+		boolean[] visited = new boolean[getNumFacelets()];
+		List<Integer> cycles = new ArrayList<Integer>();
+		
+		for (int u=0; u<size; u++) {
+			for (int v=0; v<size; v++) {
+				for (int side=0; side<NUM_SIDES; side++) {
+					setSlicePosition(position, axis, section, u, v, side);
+					if (!isOnSide(position[0], position[1], position[2], side)) continue;
+					
+					int start = getFaceletIndex(position[0], position[1], position[2], side);
+					if (visited[start]) continue;
+					
+					// follow the facelet around the slice until it gets back to where it started
+					int[] cycle = new int[4];
+					int length = 0;
+					int index = start;
+					do {
+						visited[index] = true;
+						if (length < 4) cycle[length] = index;
+						length++;
+						
+						int x = position[0], y = position[1], z = position[2], s = position[3];
+						if (axis == Axis.X) {
+							// (y,z) -> (j-z,y), front -> top -> rear -> bottom
+							position[1] = j-z; position[2] = y;
+							if (s == SIDE_FRONT) position[3] = SIDE_TOP;
+							else if (s == SIDE_TOP) position[3] = SIDE_REAR;
+							else if (s == SIDE_REAR) position[3] = SIDE_BOTTOM;
+							else if (s == SIDE_BOTTOM) position[3] = SIDE_FRONT;
+						}
+						else if (axis == Axis.Y) {
+							// (x,z) -> (z,j-x), front -> left -> rear -> right
+							position[0] = z; position[2] = j-x;
+							if (s == SIDE_FRONT) position[3] = SIDE_LEFT;
+							else if (s == SIDE_LEFT) position[3] = SIDE_REAR;
+							else if (s == SIDE_REAR) position[3] = SIDE_RIGHT;
+							else if (s == SIDE_RIGHT) position[3] = SIDE_FRONT;
+						}
+						else {
+							// (x,y) -> (y,j-x), left -> top -> right -> bottom
+							position[0] = y; position[1] = j-x;
+							if (s == SIDE_LEFT) position[3] = SIDE_TOP;
+							else if (s == SIDE_TOP) position[3] = SIDE_RIGHT;
+							else if (s == SIDE_RIGHT) position[3] = SIDE_BOTTOM;
+							else if (s == SIDE_BOTTOM) position[3] = SIDE_LEFT;
+						}
+						index = getFaceletIndex(position[0], position[1], position[2], position[3]);
+					} while (index != start);
+					
+					if (length == 4) {
+						for (int i=0; i<4; i++) cycles.add(cycle[i]);
+					}
+					else if (length != 1) {
+						throw new RuntimeException("Unexpected facelet cycle of length " + length);
+					}
+				}
+			}
+		}
+		
+		int[] result = new int[cycles.size()];
+		for (int i=0; i<result.length; i++) result[i] = cycles.get(i);
+		return result;
+	}
+	
+	// (u,v) are the two coordinates that vary within the slice, in (x,y,z) order
+	private void setSlicePosition(int[] position, Axis axis, int section, int u, int v, int side) {
+		if (axis == Axis.X) { position[0] = section; position[1] = u; position[2] = v; }
+		else if (axis == Axis.Y) { position[0] = u; position[1] = section; position[2] = v; }
+		else { position[0] = u; position[1] = v; position[2] = section; }
+		position[3] = side;
+	}
+	
+}
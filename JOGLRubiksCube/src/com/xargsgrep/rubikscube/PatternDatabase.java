@@ -0,0 +1,226 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ * A pattern database for a 3x3x3 cube. It stores the exact number of quarter turns needed to solve a subset of the
+ * pieces (their positions and orientations), ignoring all the other pieces. Since solving the whole cube also solves
+ * the subset, the stored distance is an admissible (never too high) estimate of the distance to the solved state.
+ *
+ * Distances are generated with a breadth first search outwards from the solved state, and kept in the TableStore as
+ * 4 bit values, two to a byte. The search works on indices instead of cubes: a move table gives the placement of the
+ * pieces after each move, and how each move changes the orientations of the pieces depends only on their placement.
+ */
+public class PatternDatabase {
+	
+	// the quarter turn moves of CubieCube
+	static final int[] QUARTER_TURN_MOVES = new int[CubieCube.NUM_FACES*2];
+	static {
+		for (int face=0; face<CubieCube.NUM_FACES; face++) {
+			QUARTER_TURN_MOVES[face*2]   = face*3;
+			QUARTER_TURN_MOVES[face*2+1] = face*3 + 2;
+		}
+	}
+	private static final int NUM_MOVES = QUARTER_TURN_MOVES.length;
+	
+	// must be changed whenever the move numbering or indexing changes so that stored databases are regenerated
+	private static final int VERSION = 2;
+	private static final int UNKNOWN = 0xF;
+	
+	private final boolean corners;
+	private final int[] pieces;
+	private final int numPositions;
+	private final int numOrientations;
+	private final int numOrientedPieces;    // when the subset holds every piece the last one's orientation is implied
+	private final int numPlacements;        // ordered placements of the pieces
+	private final int numOrientationStates;
+	private final ByteBuffer distances;
+	
+	private PatternDatabase(boolean corners, int[] pieces) {
+		this.corners = corners;
+		this.pieces = pieces.clone();
+		this.numPositions = corners ? CubieCube.NUM_CORNERS : CubieCube.NUM_EDGES;
+		this.numOrientations = corners ? 3 : 2;
+		this.numOrientedPieces = (pieces.length == numPositions) ? pieces.length-1 : pieces.length;
+		
+		int numPlacements = 1, numOrientationStates = 1;
+		for (int i=0; i<pieces.length; i++) numPlacements *= numPositions - i;
+		for (int i=0; i<numOrientedPieces; i++) numOrientationStates *= numOrientations;
+		this.numPlacements = numPlacements;
+		this.numOrientationStates = numOrientationStates;
+		
+		this.distances = TableStore.load(getName(), VERSION, new TableStore.Generator() {
+			@Override
+			public ByteBuffer generate() {
+				return TableStore.wrap(PatternDatabase.this.generate());
+			}
+		});
+	}
+	
+	public static PatternDatabase forCorners(int ... pieces) {
+		return new PatternDatabase(true, pieces);
+	}
+	
+	public static PatternDatabase forEdges(int ... pieces) {
+		return new PatternDatabase(false, pieces);
+	}
+	
+	// number of entries in the database: ordered placements of the pieces times their orientations
+	public int getSize() {
+		return numPlacements*numOrientationStates;
+	}
+	
+	public int getDistance(CubieCube cube) {
+		int index = getIndex(cube);
+		return (distances.get(index >>> 1) >>> ((index & 1) << 2)) & 0xF;
+	}
+	
+	// eg pdb-corners-0-1-2-3
+	private String getName() {
+		StringBuilder name = new StringBuilder(corners ? "pdb-corners" : "pdb-edges");
+		for (int piece : pieces) name.append('-').append(piece);
+		return name.toString();
+	}
+	
+	private byte[] generate() {
+		// where each move takes the piece in each position and the orientation it adds, read off of a solved cube
+		int[][] destinations = new int[NUM_MOVES][numPositions];
+		int[][] twists = new int[NUM_MOVES][numPositions];
+		for (int move=0; move<NUM_MOVES; move++) {
+			CubieCube cube = new CubieCube();
+			cube.applyMove(QUARTER_TURN_MOVES[move]);
+			for (int position=0; position<numPositions; position++) {
+				int destination = corners ? cube.cl[position] : cube.el[position];
+				destinations[move][position] = destination;
+				twists[move][position] = corners ? cube.co[destination] : cube.eo[destination];
+			}
+		}
+		
+		// the placement after each move, and the orientations each move adds (one digit per piece, like the index)
+		int[] placementMoves = new int[numPlacements*NUM_MOVES];
+		int[] orientationMoves = new int[numPlacements*NUM_MOVES];
+		int[] positions = new int[pieces.length];
+		int[] moved = new int[pieces.length];
+		for (int placement=0; placement<numPlacements; placement++) {
+			setPlacement(placement, positions);
+			for (int move=0; move<NUM_MOVES; move++) {
+				int change = 0;
+				for (int i=0; i<pieces.length; i++) {
+					moved[i] = destinations[move][positions[i]];
+					if (i < numOrientedPieces) change = change*numOrientations + twists[move][positions[i]];
+				}
+				placementMoves[placement*NUM_MOVES + move] = getPlacement(moved);
+				orientationMoves[placement*NUM_MOVES + move] = change;
+			}
+		}
+		
+		// orientations are added digit by digit without carrying, which is an xor for edges
+		short[] orientationSums = null;
+		if (numOrientations != 2) {
+			orientationSums = new short[numOrientationStates*numOrientationStates];
+			for (int a=0; a<numOrientationStates; a++) {
+				for (int b=0; b<numOrientationStates; b++) {
+					int sum = 0;
+					for (int i=0, place=1; i<numOrientedPieces; i++, place*=numOrientations) {
+						sum += ((a/place + b/place) % numOrientations) * place;
+					}
+					orientationSums[a*numOrientationStates + b] = (short) sum;
+				}
+			}
+		}
+		
+		int size = getSize();
+		byte[] distances = new byte[size];
+		Arrays.fill(distances, (byte) UNKNOWN);
+		distances[getIndex(new CubieCube())] = 0;
+		
+		// each pass finds the indices at the next depth. early on it's faster to expand the indices at the previous
+		// depth, and once most of the indices have been found it's faster to check which of the remaining ones have a
+		// neighbor at the previous depth (every move's inverse is also a move, so neighbors go both ways)
+		int found = 1, unknown = size-1;
+		for (int depth=1; found > 0; depth++) {
+			boolean backwards = unknown < found;
+			found = 0;
+			for (int index=0; index<size; index++) {
+				if (distances[index] != (backwards ? UNKNOWN : depth-1)) continue;
+				
+				int placement = index / numOrientationStates, orientation = index % numOrientationStates;
+				for (int move=0; move<NUM_MOVES; move++) {
+					int i = placement*NUM_MOVES + move;
+					int change = orientationMoves[i];
+					int nextOrientation = (orientationSums == null) ? orientation ^ change : orientationSums[orientation*numOrientationStates + change];
+					int next = placementMoves[i]*numOrientationStates + nextOrientation;
+					if (backwards) {
+						if (distances[next] != depth-1) continue;
+						distances[index] = (byte) depth;
+						found++;
+						break;
+					}
+					if (distances[next] == UNKNOWN) {
+						distances[next] = (byte) depth;
+						found++;
+					}
+				}
+			}
+			unknown -= found;
+			if (found > 0 && depth >= UNKNOWN) throw new RuntimeException("Distances in " + getName() + " don't fit in 4 bits");
+		}
+		
+		byte[] packed = new byte[(size+1)/2];
+		for (int index=0; index<size; index++) packed[index >>> 1] |= distances[index] << ((index & 1) << 2);
+		return packed;
+	}
+	
+	// the placement of the pieces is ranked as a partial permutation, followed by their orientations
+	private int getIndex(CubieCube cube) {
+		byte[] locations = corners ? cube.cl : cube.el;
+		byte[] ori = corners ? cube.co : cube.eo;
+		
+		int placement = 0, orientation = 0;
+		int used = 0; // bit mask of the positions taken by the previous pieces
+		for (int i=0; i<pieces.length; i++) {
+			int position = locations[pieces[i]];
+			
+			placement = placement*(numPositions - i) + (position - Integer.bitCount(used & ((1 << position) - 1)));
+			if (i < numOrientedPieces) orientation = orientation*numOrientations + ori[position];
+			used |= (1 << position);
+		}
+		return placement*numOrientationStates + orientation;
+	}
+	
+	private int getPlacement(int[] positions) {
+		int placement = 0, used = 0;
+		for (int i=0; i<pieces.length; i++) {
+			int position = positions[i];
+			placement = placement*(numPositions - i) + (position - Integer.bitCount(used & ((1 << position) - 1)));
+			used |= (1 << position);
+		}
+		return placement;
+	}
+	
+	private void setPlacement(int placement, int[] positions) {
+		int[] ranks = new int[pieces.length];
+		for (int i=pieces.length-1; i>=0; i--) {
+			ranks[i] = placement % (numPositions - i);
+			placement /= (numPositions - i);
+		}
+		
+		int used = 0;
+		for (int i=0; i<pieces.length; i++) {
+			// ranks[i] is the rank of the position among the positions that are still free
+			int position = -1;
+			for (int free=ranks[i]; free>=0; free--) {
+				position++;
+				while ((used & (1 << position)) != 0) position++;
+			}
+			positions[i] = position;
+			used |= (1 << position);
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/*
+ * Performance counters for RubiksCubeJOGLRenderer. Each drawn frame records the CPU time it spent updating the
+ * animation, building and uploading geometry, and issuing draw calls, and every rotation applied to the cube records
+ * how long applyRotation() took in a histogram of power of 2 buckets (so its percentiles are upper bounds).
+ *
+ * The counters are summarized into a Snapshot once per period and then reset, so every snapshot covers one period.
+ * If an export file is set each snapshot is also appended to it, as JSON (one object per line) if the file name ends
+ * with .json and as CSV otherwise.
+ *
+ * Not thread safe, all of the methods should be called from the GL thread.
+ */
+public class RenderMetrics {
+	
+	public static final long DEFAULT_PERIOD_NANOS = 1000000000L;
+	
+	private static final String CSV_HEADER = "time_ms,frames,fps,update_avg_ms,update_max_ms,geometry_avg_ms,geometry_max_ms,"
+		+ "draw_avg_ms,draw_max_ms,moves_per_sec,apply_rotation_p50_us,apply_rotation_p99_us,apply_rotation_max_us";
+	
+	private final long periodNanos;
+	private long startTime = -1;
+	private long periodStartTime;
+	
+	private int frames;
+	private long updateNanos, maxUpdateNanos;
+	private long geometryNanos, maxGeometryNanos;
+	private long drawNanos, maxDrawNanos;
+	private int rotations;
+	private final long[] rotationHistogram = new long[64]; // bucket i counts latencies below 2^i nanoseconds
+	private long maxRotationNanos;
+	
+	private Snapshot snapshot;
+	
+	private BufferedWriter exportWriter;
+	private boolean exportJson;
+	
+	public RenderMetrics() {
+		this(DEFAULT_PERIOD_NANOS);
+	}
+	
+	public RenderMetrics(long periodNanos) {
+		this.periodNanos = periodNanos;
+	}
+	
+	// appends every snapshot to the file, replacing its contents
+	public void setExportFile(File file) throws IOException {
+		closeExportFile();
+		exportJson = file.getName().toLowerCase(Locale.ROOT).endsWith(".json");
+		exportWriter = new BufferedWriter(new FileWriter(file));
+		if (!exportJson) {
+			exportWriter.write(CSV_HEADER);
+			exportWriter.newLine();
+			exportWriter.flush();
+		}
+	}
+	
+	public void closeExportFile() throws IOException {
+		if (exportWriter == null) return;
+		exportWriter.close();
+		exportWriter = null;
+	}
+	
+	// times are the CPU time in nanoseconds spent on each part of a frame that was drawn
+	public void recordFrame(long updateNanos, long geometryNanos, long drawNanos) {
+		frames++;
+		this.updateNanos += updateNanos;
+		this.geometryNanos += geometryNanos;
+		this.drawNanos += drawNanos;
+		maxUpdateNanos = Math.max(maxUpdateNanos, updateNanos);
+		maxGeometryNanos = Math.max(maxGeometryNanos, geometryNanos);
+		maxDrawNanos = Math.max(maxDrawNanos, drawNanos);
+	}
+	
+	// records a rotation that was applied to the cube and the time applyRotation() took
+	public void recordRotation(long nanos) {
+		rotations++;
+		rotationHistogram[64 - Long.numberOfLeadingZeros(Math.max(0, nanos))]++;
+		maxRotationNanos = Math.max(maxRotationNanos, nanos);
+	}
+	
+	// takes a snapshot if the current period is over. returns true if it did
+	public boolean update(long now) {
+		if (startTime < 0) {
+			startTime = now;
+			periodStartTime = now;
+			return false;
+		}
+		
+		long elapsed = now - periodStartTime;
+		if (elapsed < periodNanos) return false;
+		
+		snapshot = new Snapshot(this, (now - startTime)/1000000, elapsed);
+		export(snapshot);
+		
+		periodStartTime = now;
+		frames = 0;
+		updateNanos = maxUpdateNanos = 0;
+		geometryNanos = maxGeometryNanos = 0;
+		drawNanos = maxDrawNanos = 0;
+		rotations = 0;
+		Arrays.fill(rotationHistogram, 0);
+		maxRotationNanos = 0;
+		return true;
+	}
+	
+	// returns the latest snapshot, or null if no period has ended yet
+	public Snapshot getSnapshot() {
+		return snapshot;
+	}
+	
+	private void export(Snapshot snapshot) {
+		if (exportWriter == null) return;
+		try {
+			exportWriter.write(exportJson ? snapshot.toJson() : snapshot.toCsv());
+			exportWriter.newLine();
+			exportWriter.flush();
+		}
+		catch (IOException e) {
+			System.err.println("Unable to export metrics: " + e.getMessage());
+			try { closeExportFile(); }
+			catch (IOException ignored) { }
+		}
+	}
+	
+	// upper bound of the bucket that holds the specified fraction of the recorded rotations
+	private long getRotationPercentile(double fraction) {
+		long target = (long) Math.ceil(rotations*fraction), count = 0;
+		for (int bucket=0; bucket<rotationHistogram.length; bucket++) {
+			count += rotationHistogram[bucket];
+			if (count >= target && count > 0) return Math.min(1L << bucket, maxRotationNanos);
+		}
+		return 0;
+	}
+	
+	/*
+	 * Summary of one period. Times are in milliseconds except for the applyRotation() latencies, which are in
+	 * microseconds.
+	 */
+	public static class Snapshot {
+		
+		public final long timeMillis; // since the first update
+		public final int frames;
+		public final double fps;
+		public final double updateAverageMillis, updateMaxMillis;
+		public final double geometryAverageMillis, geometryMaxMillis;
+		public final double drawAverageMillis, drawMaxMillis;
+		public final double movesPerSecond;
+		public final double rotationP50Micros, rotationP99Micros, rotationMaxMicros;
+		
+		private Snapshot(RenderMetrics metrics, long timeMillis, long periodNanos) {
+			int frames = Math.max(1, metrics.frames);
+			double seconds = periodNanos/1e9;
+			this.timeMillis = timeMillis;
+			this.frames = metrics.frames;
+			this.fps = metrics.frames/seconds;
+			this.updateAverageMillis = metrics.updateNanos/1e6/frames;
+			this.updateMaxMillis = metrics.maxUpdateNanos/1e6;
+			this.geometryAverageMillis = metrics.geometryNanos/1e6/frames;
+			this.geometryMaxMillis = metrics.maxGeometryNanos/1e6;
+			this.drawAverageMillis = metrics.drawNanos/1e6/frames;
+			this.drawMaxMillis = metrics.maxDrawNanos/1e6;
+			this.movesPerSecond = metrics.rotations/seconds;
+			this.rotationP50Micros = metrics.getRotationPercentile(0.5)/1e3;
+			this.rotationP99Micros = metrics.getRotationPercentile(0.99)/1e3;
+			this.rotationMaxMicros = metrics.maxRotationNanos/1e3;
+		}
+		
+		// lines of text for the overlay
+		public String[] toLines() {
+			return new String[] {
+				format("%.1f fps (%d frames drawn)", fps, frames),
+				format("update    %6.2f ms avg %6.2f ms max", updateAverageMillis, updateMaxMillis),
+				format("geometry  %6.2f ms avg %6.2f ms max", geometryAverageMillis, geometryMaxMillis),
+				format("draw      %6.2f ms avg %6.2f ms max", drawAverageMillis, drawMaxMillis),
+				format("%.1f moves/sec", movesPerSecond),
+				format("applyRotation p50 %.1f us p99 %.1f us max %.1f us", rotationP50Micros, rotationP99Micros, rotationMaxMicros)
+			};
+		}
+		
+		public String toCsv() {
+			return format("%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.2f,%.2f,%.2f,%.2f", timeMillis, frames, fps,
+				updateAverageMillis, updateMaxMillis, geometryAverageMillis, geometryMaxMillis, drawAverageMillis, drawMaxMillis,
+				movesPerSecond, rotationP50Micros, rotationP99Micros, rotationMaxMicros);
+		}
+		
+		public String toJson() {
+			return format("{\"timeMs\":%d,\"frames\":%d,\"fps\":%.2f,\"updateAvgMs\":%.3f,\"updateMaxMs\":%.3f,"
+				+ "\"geometryAvgMs\":%.3f,\"geometryMaxMs\":%.3f,\"drawAvgMs\":%.3f,\"drawMaxMs\":%.3f,\"movesPerSec\":%.2f,"
+				+ "\"applyRotationP50Us\":%.2f,\"applyRotationP99Us\":%.2f,\"applyRotationMaxUs\":%.2f}", timeMillis, frames, fps,
+				updateAverageMillis, updateMaxMillis, geometryAverageMillis, geometryMaxMillis, drawAverageMillis, drawMaxMillis,
+				movesPerSecond, rotationP50Micros, rotationP99Micros, rotationMaxMicros);
+		}
+		
+		// always uses a period as the decimal separator, so exported files parse the same everywhere
+		private static String format(String format, Object... args) {
+			return String.format(Locale.ROOT, format, args);
+		}
+	
+	}
+
+}
@@ -4,8 +4,16 @@
 
 package com.xargsgrep.rubikscube;
 
+import java.util.Arrays;
+
 /*
- * Represents a single rotation of a Rubik's Cube. Specifies axis, section, and direction.
+ * Represents a single rotation of a Rubik's Cube. Specifies axis, section, width and direction. A rotation can
+ * be a quarter turn in either direction or a half turn, and can turn several adjacent sections at once (a wide turn).
+ *
+ * Rotations are immutable and interned: valueOf() always returns the same instance for the same rotation, so they
+ * can be compared with == and creating them doesn't allocate. Each rotation also has a dense integer id. Ids are
+ * ordered so that the rotations of a cube of size n are exactly the ids below getNumRotations(n), which means move
+ * sequences can be stored as arrays of ids and tables can be indexed by id.
  */
 public class Rotation {
 	
@@ -13,23 +21,100 @@ public class Rotation {
 	public enum Direction { 
 		CLOCKWISE {
 			@Override public Direction reverse() { return COUNTER_CLOCKWISE; }
+			@Override public int getQuarterTurns() { return 1; }
 		},
 		COUNTER_CLOCKWISE {
 			@Override public Direction reverse() { return CLOCKWISE; }
+			@Override public int getQuarterTurns() { return 3; }
+		},
+		HALF_TURN {
+			@Override public Direction reverse() { return HALF_TURN; }
+			@Override public int getQuarterTurns() { return 2; }
 		}; 
 		
 		public abstract Direction reverse();
+		
+		// number of clockwise quarter turns (1-3) that this direction is equivalent to
+		public abstract int getQuarterTurns();
+		
+		// returns the direction equivalent to the specified number of clockwise quarter turns, or null if it is a multiple of 4
+		public static Direction fromQuarterTurns(int quarterTurns) {
+			switch (((quarterTurns % 4) + 4) % 4) {
+				case 1:  return CLOCKWISE;
+				case 2:  return HALF_TURN;
+				case 3:  return COUNTER_CLOCKWISE;
+				default: return null;
+			}
+		}
 	}
 	
-	Axis axis;
-	int section; // this is the index of the row/column/face that is to be rotated
-	Direction direction;
+	private static final Axis[] AXES = Axis.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
 	
-	public Rotation(Axis axis, int section, Direction direction) {
+	// interned rotations indexed by id, grown as larger cubes are used
+	private static volatile Rotation[] rotations = new Rotation[0];
+	
+	final int id;
+	final Axis axis;
+	final int section; // this is the index of the row/column/face that is to be rotated
+	final int width;   // number of adjacent sections (starting at section) that are rotated together
+	final Direction direction;
+	
+	private Rotation(int id, Axis axis, int section, int width, Direction direction) {
+		this.id = id;
 		this.axis = axis;
 		this.section = section;
+		this.width = width;
 		this.direction = direction;
 	}
+	
+	public static Rotation valueOf(Axis axis, int section, Direction direction) {
+		return valueOf(axis, section, 1, direction);
+	}
+	
+	public static Rotation valueOf(Axis axis, int section, int width, Direction direction) {
+		if (section < 0) throw new RuntimeException("Rotation section must not be negative: " + section);
+		if (width < 1) throw new RuntimeException("Rotation width must be at least 1: " + width);
+		
+		// rotations are grouped by the section after the last one they turn
+		int end = section + width;
+		return fromId(getNumRotations(end-1) + (section*AXES.length + axis.ordinal())*DIRECTIONS.length + direction.ordinal());
+	}
+	
+	public static Rotation fromId(int id) {
+		Rotation[] rotations = Rotation.rotations;
+		if (id >= rotations.length) rotations = grow(id);
+		return rotations[id];
+	}
+	
+	// number of distinct rotations of a cube of the specified size
+	public static int getNumRotations(int size) {
+		return AXES.length*DIRECTIONS.length*size*(size+1)/2;
+	}
+	
+	private static synchronized Rotation[] grow(int id) {
+		Rotation[] rotations = Rotation.rotations;
+		if (id < rotations.length) return rotations;
+		
+		int size = 1;
+		while (getNumRotations(size) <= id) size++;
+		Rotation[] grown = Arrays.copyOf(rotations, getNumRotations(size));
+		for (int end=1; end<=size; end++) {
+			int first = getNumRotations(end-1);
+			if (first < rotations.length) continue;
+			for (int i=first; i<getNumRotations(end); i++) {
+				int section = (i-first) / (AXES.length*DIRECTIONS.length);
+				Axis axis = AXES[(i-first) / DIRECTIONS.length % AXES.length];
+				grown[i] = new Rotation(i, axis, section, end-section, DIRECTIONS[(i-first) % DIRECTIONS.length]);
+			}
+		}
+		Rotation.rotations = grown;
+		return grown;
+	}
+	
+	public int getId() {
+		return id;
+	}
 
 	public int getSection() {
 		return section;
@@ -39,6 +124,10 @@ public class Rotation {
 		return axis;
 	}
 
+	public int getWidth() {
+		return width;
+	}
+	
 	public Direction getDirection() {
 		return direction;
 	}
@@ -47,4 +136,13 @@ public class Rotation {
 		return (direction == Direction.CLOCKWISE);
 	}
 	
+	public boolean isHalfTurn() {
+		return (direction == Direction.HALF_TURN);
+	}
+	
+	// returns the rotation that undoes this one
+	public Rotation getReverse() {
+		return valueOf(axis, section, width, direction.reverse());
+	}
+	
 }
@@ -5,14 +5,23 @@
 package com.xargsgrep.rubikscube;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.xargsgrep.rubikscube.Cubie.Color;
 import com.xargsgrep.rubikscube.Rotation.Axis;
 
 /*
- * Represents a Rubik's Cube using a 3-dimensional array of Cubies. This implementation supports cubes of any size.
- * Rotations are applied using the Rotation class.
+ * Represents a Rubik's Cube using a flat array of facelets. Only the visible facelets are stored (6*size*size of them)
+ * so interior cubies take up no space at all. Cubies are still available as views over the facelets. This implementation
+ * supports cubes of any size. Rotations are applied using the Rotation class.
+ *
+ * The cube keeps a 64-bit Zobrist hash of its facelets (see MoveTable) that is updated incrementally as rotations are
+ * applied, so getHash(), hashCode() and equals() are cheap and cubes can be used as keys in hash based collections.
+ * Two cubes are equal if they have the same size and the same facelet colors.
+ *
+ * Every change to the state also bumps a version number (see getVersion()), which lets views tell whether the cube has
+ * changed since they last looked at it without comparing facelets.
  */
 public class RubiksCube {
 	
@@ -26,26 +35,104 @@ public class RubiksCube {
 	public static final int FACE_FRONT    = 0;
 	public static final int FACE_MIDDLE   = 1;
 	public static final int FACE_REAR     = 2;
-
+	
+	// sides of the cube in the facelet array, in the same order as the Cubie.FACELET_* bits. see MoveTable.getFaceletIndex()
+	static final int SIDE_FRONT  = 0;
+	static final int SIDE_REAR   = 1;
+	static final int SIDE_LEFT   = 2;
+	static final int SIDE_RIGHT  = 3;
+	static final int SIDE_TOP    = 4;
+	static final int SIDE_BOTTOM = 5;
+	static final int NUM_SIDES   = 6;
+	
+	private static final Color[] COLORS = Color.values();
+	static final Color[] SOLVED_STATE_COLORS = {
+		Cubie.SOLVED_STATE_FRONT_COLOR, Cubie.SOLVED_STATE_REAR_COLOR,
+		Cubie.SOLVED_STATE_LEFT_COLOR, Cubie.SOLVED_STATE_RIGHT_COLOR,
+		Cubie.SOLVED_STATE_TOP_COLOR, Cubie.SOLVED_STATE_BOTTOM_COLOR
+	};
+	
 	private final int size;
-	private Cubie[][][] state;
-
+	private final byte[] facelets; // color ordinals
+	private final MoveTable moveTable;
+	private long hash;
+	private long version;
+	
 	public RubiksCube(int size) {
 		this.size = size;
-		this.state = new Cubie[size][size][size];
+		this.moveTable = MoveTable.forSize(size);
+		this.facelets = new byte[moveTable.getNumFacelets()];
 		resetState();
 	}
 	
 	public RubiksCube(Cubie[][][] state) {
-		this.size = state.length;
-		this.state = state;
+		this(state.length);
+		for (int x=0; x<size; x++) {
+			for (int y=0; y<size; y++) {
+				for (int z=0; z<size; z++) {
+					Cubie cubie = state[x][y][z];
+					int visibleFaces = getVisibleFaces(x, y, z);
+					if ((visibleFaces & Cubie.FACELET_FRONT) > 0)  setFacelet(x, y, z, SIDE_FRONT, cubie.frontColor);
+					if ((visibleFaces & Cubie.FACELET_REAR) > 0)   setFacelet(x, y, z, SIDE_REAR, cubie.rearColor);
+					if ((visibleFaces & Cubie.FACELET_LEFT) > 0)   setFacelet(x, y, z, SIDE_LEFT, cubie.leftColor);
+					if ((visibleFaces & Cubie.FACELET_RIGHT) > 0)  setFacelet(x, y, z, SIDE_RIGHT, cubie.rightColor);
+					if ((visibleFaces & Cubie.FACELET_TOP) > 0)    setFacelet(x, y, z, SIDE_TOP, cubie.topColor);
+					if ((visibleFaces & Cubie.FACELET_BOTTOM) > 0) setFacelet(x, y, z, SIDE_BOTTOM, cubie.bottomColor);
+				}
+			}
+		}
+		hash = moveTable.getHash(facelets);
+		version++;
+	}
+	
+	// creates a cube from facelet color ordinals laid out as described in MoveTable.getFaceletIndex()
+	RubiksCube(int size, byte[] facelets) {
+		this.size = size;
+		this.moveTable = MoveTable.forSize(size);
+		if (facelets.length != moveTable.getNumFacelets())
+			throw new RuntimeException("Expected " + moveTable.getNumFacelets() + " facelets but got " + facelets.length);
+		this.facelets = facelets;
+		this.hash = moveTable.getHash(facelets);
+	}
+	
+	private RubiksCube(RubiksCube cube) {
+		this.size = cube.size;
+		this.facelets = cube.facelets.clone();
+		this.moveTable = cube.moveTable;
+		this.hash = cube.hash;
 	}
 	
 	public int getSize() {
 		return size;
 	}
 	
+	// returns the backing facelet array (not a copy), which must not be modified since that would invalidate the
+	// hash. see MoveTable.getFaceletIndex() for the layout
+	byte[] getFacelets() {
+		return facelets;
+	}
+	
+	// returns the Zobrist hash of the cube's state. cubes of the same size with the same state have the same hash
+	public long getHash() {
+		return hash;
+	}
+	
+	// returns a number that changes every time the state of this cube is modified. unlike the hash it changes even
+	// if the cube returns to an earlier state, and it is not shared with copies
+	public long getVersion() {
+		return version;
+	}
+	
+	// returns a snapshot of the cube as a 3-dimensional array of Cubies. see getCubie()
 	public Cubie[][][] getState() {
+		Cubie[][][] state = new Cubie[size][size][size];
+		for (int x=0; x<size; x++) {
+			for (int y=0; y<size; y++) {
+				for (int z=0; z<size; z++) {
+					state[x][y][z] = getCubie(x, y, z);
+				}
+			}
+		}
 		return state;
 	}
 	
@@ -53,21 +140,41 @@ public class RubiksCube {
 		return getCubie(position.x, position.y, position.z);
 	}
 	
+	// returns a snapshot of the cubie at the specified position. colors of faces that are not visible are null
 	public Cubie getCubie(int x, int y, int z) {
-		return state[x][y][z];
+		return new Cubie(
+			getFaceletColor(x, y, z, Cubie.FACELET_FRONT),
+			getFaceletColor(x, y, z, Cubie.FACELET_REAR),
+			getFaceletColor(x, y, z, Cubie.FACELET_TOP),
+			getFaceletColor(x, y, z, Cubie.FACELET_BOTTOM),
+			getFaceletColor(x, y, z, Cubie.FACELET_LEFT),
+			getFaceletColor(x, y, z, Cubie.FACELET_RIGHT)
+		);
+	}
+	
+	// returns the color of the specified face (one of the Cubie.FACELET_* bits) of the cubie at the specified position,
+	// or null if that face is not on the outside of the cube
+	public Color getFaceletColor(int x, int y, int z, int facelet) {
+		int side = Integer.numberOfTrailingZeros(facelet);
+		if (!moveTable.isOnSide(x, y, z, side)) return null;
+		return COLORS[facelets[moveTable.getFaceletIndex(x, y, z, side)]];
+	}
+	
+	// returns true if every side of the cube is a single color. the cube doesn't have to be in the solved orientation
+	public boolean isSolved() {
+		int sideLength = size*size;
+		for (int i=0; i<facelets.length; i++) {
+			if (facelets[i] != facelets[i - i%sideLength]) return false;
+		}
+		return true;
 	}
 	
 	// returns true if the position is in the correct location and orientation
 	public boolean isPositionSolved(CubiePosition position) {
-		Cubie cubie = getCubie(position);
-		
-		int lastIdx = size-1;
-		if (position.x == 0 && cubie.leftColor != Cubie.SOLVED_STATE_LEFT_COLOR)         return false;
-		if (position.x == lastIdx && cubie.rightColor != Cubie.SOLVED_STATE_RIGHT_COLOR) return false;
-		if (position.y == 0 && cubie.bottomColor != Cubie.SOLVED_STATE_BOTTOM_COLOR)     return false;
-		if (position.y == lastIdx && cubie.topColor != Cubie.SOLVED_STATE_TOP_COLOR)     return false;
-		if (position.z == 0 && cubie.frontColor != Cubie.SOLVED_STATE_FRONT_COLOR)       return false;
-		if (position.z == lastIdx && cubie.rearColor != Cubie.SOLVED_STATE_REAR_COLOR)   return false;
+		int x = position.x, y = position.y, z = position.z;
+		for (int side=0; side<NUM_SIDES; side++) {
+			if (moveTable.isOnSide(x, y, z, side) && facelets[moveTable.getFaceletIndex(x, y, z, side)] != SOLVED_STATE_COLORS[side].ordinal()) return false;
+		}
 		return true;
 	}
 	
@@ -103,12 +210,12 @@ public class RubiksCube {
 		List<Color> colors = new ArrayList<Color>(3);
 		int visibleFaces = getVisibleFaces(x, y, z);
 		
-		if ((visibleFaces & Cubie.FACELET_LEFT) > 0)   colors.add(getCubie(x, y, z).leftColor);
-		if ((visibleFaces & Cubie.FACELET_RIGHT) > 0)  colors.add(getCubie(x, y, z).rightColor);
-		if ((visibleFaces & Cubie.FACELET_BOTTOM) > 0) colors.add(getCubie(x, y, z).bottomColor);
-		if ((visibleFaces & Cubie.FACELET_TOP) > 0)    colors.add(getCubie(x, y, z).topColor);
-		if ((visibleFaces & Cubie.FACELET_FRONT) > 0)  colors.add(getCubie(x, y, z).frontColor);
-		if ((visibleFaces & Cubie.FACELET_REAR) > 0)   colors.add(getCubie(x, y, z).rearColor);
+		if ((visibleFaces & Cubie.FACELET_LEFT) > 0)   colors.add(getFaceletColor(x, y, z, Cubie.FACELET_LEFT));
+		if ((visibleFaces & Cubie.FACELET_RIGHT) > 0)  colors.add(getFaceletColor(x, y, z, Cubie.FACELET_RIGHT));
+		if ((visibleFaces & Cubie.FACELET_BOTTOM) > 0) colors.add(getFaceletColor(x, y, z, Cubie.FACELET_BOTTOM));
+		if ((visibleFaces & Cubie.FACELET_TOP) > 0)    colors.add(getFaceletColor(x, y, z, Cubie.FACELET_TOP));
+		if ((visibleFaces & Cubie.FACELET_FRONT) > 0)  colors.add(getFaceletColor(x, y, z, Cubie.FACELET_FRONT));
+		if ((visibleFaces & Cubie.FACELET_REAR) > 0)   colors.add(getFaceletColor(x, y, z, Cubie.FACELET_REAR));
 		
 		return colors;
 	}
@@ -133,101 +240,57 @@ public class RubiksCube {
 	}
 	
 	public void applyRotation(Rotation rotation) {
-		if (rotation.getSection() >= size)
+		if (rotation.getSection() + rotation.getWidth() > size)
 			throw new RuntimeException("Specified rotation section is out of bounds: " + rotation.getSection());
-			
-		if (rotation.getAxis() == Axis.X)
-			applyXRotation(rotation);
-		else if (rotation.getAxis() == Axis.Y)
-			applyYRotation(rotation);
-		else if (rotation.getAxis() == Axis.Z)
-			applyZRotation(rotation);
+		
+		Axis axis = rotation.getAxis();
+		int section = rotation.getSection(), width = rotation.getWidth();
+		hash ^= moveTable.getHashOfSlices(facelets, axis, section, width);
+		moveTable.apply(facelets, axis, section, width, rotation.getDirection().getQuarterTurns());
+		hash ^= moveTable.getHashOfSlices(facelets, axis, section, width);
+		version++;
 	}
 	
 	public void resetState() {
-		for (int x=0; x<size; x++) {
-			for (int y=0; y<size; y++) {
-				for (int z=0; z<size; z++) {
-					state[x][y][z] = new Cubie();
-				}
+		int sideLength = size*size;
+		for (int side=0; side<NUM_SIDES; side++) {
+			for (int i=0; i<sideLength; i++) {
+				facelets[side*sideLength + i] = (byte) SOLVED_STATE_COLORS[side].ordinal();
 			}
 		}
+		hash = moveTable.getHash(facelets);
+		version++;
 	}
 	
-	public RubiksCube getCopy() {
-		return new RubiksCube(copyState());
+	// replaces every facelet color with colors[color] (by ordinal)
+	void recolor(byte[] colors) {
+		for (int i=0; i<facelets.length; i++) facelets[i] = colors[facelets[i]];
+		hash = moveTable.getHash(facelets);
+		version++;
 	}
 	
-	private void applyXRotation(Rotation rotation) {
-		int x = rotation.getSection();
-		int j = size-1;
-		
-		Cubie[][][] copy = copyState();
-		for (int i=0, ir=j; i<size; i++, ir--) {
-			copy[x][j][i].topColor    = rotation.isClockwise() ? state[x][i][0].frontColor   : state[x][ir][j].rearColor;
-			copy[x][0][i].bottomColor = rotation.isClockwise() ? state[x][i][j].rearColor    : state[x][ir][0].frontColor;
-			copy[x][i][0].frontColor  = rotation.isClockwise() ? state[x][0][ir].bottomColor : state[x][j][i].topColor;
-			copy[x][i][j].rearColor   = rotation.isClockwise() ? state[x][j][ir].topColor    : state[x][0][i].bottomColor;
-		}
-		for (int y=0, yr=j; y<size; y++, yr--) {
-			for (int z=0, zr=j; z<size; z++, zr--) {
-				copy[x][y][z].leftColor  = rotation.isClockwise() ? state[x][z][yr].leftColor  : state[x][zr][y].leftColor;
-				copy[x][y][z].rightColor = rotation.isClockwise() ? state[x][z][yr].rightColor : state[x][zr][y].rightColor;
-			}
-		}
-		state = copy;
+	public RubiksCube getCopy() {
+		return new RubiksCube(this);
 	}
 	
-	private void applyYRotation(Rotation rotation) {	
-		int y = rotation.getSection();
-		int j = size-1;
-		
-		Cubie[][][] copy = copyState();
-		for (int i=0, ir=j; i<size; i++, ir--) {
-			copy[0][y][i].leftColor  = rotation.isClockwise() ? state[ir][y][0].frontColor : state[i][y][j].rearColor;
-			copy[j][y][i].rightColor = rotation.isClockwise() ? state[ir][y][j].rearColor  : state[i][y][0].frontColor;
-			copy[i][y][0].frontColor = rotation.isClockwise() ? state[j][y][i].rightColor  : state[0][y][ir].leftColor;
-			copy[i][y][j].rearColor  = rotation.isClockwise() ? state[0][y][i].leftColor   : state[j][y][ir].rightColor;
-		}
-		for (int x=0, xr=j; x<size; x++, xr--) {
-			for (int z=0, zr=j; z<size; z++, zr--) {
-				copy[x][y][z].topColor    = rotation.isClockwise() ? state[zr][y][x].topColor    : state[z][y][xr].topColor;
-				copy[x][y][z].bottomColor = rotation.isClockwise() ? state[zr][y][x].bottomColor : state[z][y][xr].bottomColor;
-			}
-		}
-		state = copy;
+	private void setFacelet(int x, int y, int z, int side, Color color) {
+		facelets[moveTable.getFaceletIndex(x, y, z, side)] = (byte) color.ordinal();
 	}
 	
-	private void applyZRotation(Rotation rotation) {
-		int z = rotation.getSection();
-		int j = size-1;
-		
-		Cubie[][][] copy = copyState();
-		for (int i=0, ir=j; i<size; i++, ir--) {
-			copy[i][j][z].topColor    = rotation.isClockwise() ? state[0][i][z].leftColor    : state[j][ir][z].rightColor;
-			copy[i][0][z].bottomColor = rotation.isClockwise() ? state[j][i][z].rightColor   : state[0][ir][z].leftColor;
-			copy[0][i][z].leftColor   = rotation.isClockwise() ? state[ir][0][z].bottomColor : state[i][j][z].topColor;
-			copy[j][i][z].rightColor  = rotation.isClockwise() ? state[ir][j][z].topColor    : state[i][0][z].bottomColor;
-		}
-		for (int x=0, xr=j; x<size; x++, xr--) {
-			for (int y=0, yr=j; y<size; y++, yr--) {
-				copy[x][y][z].frontColor = rotation.isClockwise() ? state[yr][x][z].frontColor : state[y][xr][z].frontColor;
-				copy[x][y][z].rearColor  = rotation.isClockwise() ? state[yr][x][z].rearColor  : state[y][xr][z].rearColor;
-			}
-		}
-		state = copy;
+	@Override
+	public int hashCode() {
+		return (int) (hash ^ (hash >>> 32));
 	}
 	
-	private Cubie[][][] copyState() {
-		Cubie[][][] dest = new Cubie[size][size][size];
-		for (int x=0; x<size; x++) {
-			for (int y=0; y<size; y++) {
-				for (int z=0; z<size; z++) {
-					dest[x][y][z] = state[x][y][z].getCopy();
-				}
-			}
-		}
-		return dest;
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		RubiksCube other = (RubiksCube) obj;
+		if (size != other.size) return false;
+		if (hash != other.hash) return false;
+		return Arrays.equals(facelets, other.facelets);
 	}
 
 }
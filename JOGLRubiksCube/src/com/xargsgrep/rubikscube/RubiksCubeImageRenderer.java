@@ -0,0 +1,227 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+/*
+ * Renders cube states to images on the CPU, without OpenGL or a display, so images can be made on headless machines.
+ * The cube is built by CubeGeometry and seen through the same camera as in RubiksCubeJOGLRenderer, with its sections
+ * at rest.
+ *
+ * With the sections at rest the geometry never moves, so which quad is visible at each pixel only depends on the
+ * camera. That is worked out once per camera by rasterizing every quad with a depth buffer, and rendering a state
+ * is then just a matter of looking up the color of each pixel's quad. One image is reused for every render, which
+ * makes rendering thousands of states cheap. Writing the PNG costs far more than rendering it.
+ *
+ * Used on its own it renders a batch of scrambles to PNG files. Each image only depends on the seed and its number.
+ *
+ * Usage: RubiksCubeImageRenderer [size] [numImages] [seed] [outputDirectory] [imageSize]
+ */
+public class RubiksCubeImageRenderer {
+	
+	private static final int DEFAULT_SIZE = 3;
+	private static final int DEFAULT_NUM_IMAGES = 100;
+	private static final long DEFAULT_SEED = 0;
+	private static final int DEFAULT_IMAGE_SIZE = 256;
+	private static final int NUM_SCRAMBLE_MOVES = 100;
+	
+	private static final float NEAR_PLANE = 0.1f;
+	
+	private final int width;
+	private final int height;
+	private final CubeGeometry geometry;
+	
+	private final BufferedImage image;
+	private final int[] pixels;    // backing array of the image
+	private final int[] quadIds;   // quad visible at each pixel, -1 for the background
+	private final float[] depths;  // 1/depth of the closest quad at each pixel, 0 for the background
+	private final int[] quadColors;
+	
+	// screen coordinates and 1/depth of every vertex for the current camera
+	private final float[] screenX, screenY, inverseDepths;
+	
+	private float cameraAngleX = RubiksCubeJOGLRenderer.DEFAULT_CAMERA_ANGLE_X;
+	private float cameraAngleY = RubiksCubeJOGLRenderer.DEFAULT_CAMERA_ANGLE_Y;
+	private float cameraAngleZ = 0;
+	private float zoom;
+	private boolean visibilityValid = false;
+	
+	public RubiksCubeImageRenderer(int size, int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.geometry = new CubeGeometry(size, RubiksCubeJOGLRenderer.CUBIE_TRANSLATION_FACTOR);
+		this.zoom = getDefaultZoom(size);
+		
+		this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		this.quadIds = new int[width*height];
+		this.depths = new float[width*height];
+		this.quadColors = new int[geometry.getNumQuads()];
+		
+		int numVertices = geometry.getNumQuads()*CubeGeometry.VERTICES_PER_QUAD;
+		this.screenX = new float[numVertices];
+		this.screenY = new float[numVertices];
+		this.inverseDepths = new float[numVertices];
+		
+		float[] anglesAtRest = new float[size];
+		geometry.buildVertices(anglesAtRest, anglesAtRest, anglesAtRest);
+	}
+	
+	// the zoom at which the whole cube fits in the picture about as well as a 3x3x3 does at the default zoom
+	public static float getDefaultZoom(int size) {
+		float spacing = RubiksCubeJOGLRenderer.CUBIE_TRANSLATION_FACTOR;
+		float halfWidth = (size-1)*spacing/2 + 1;
+		float halfWidth3x3 = 2*spacing/2 + 1;
+		return RubiksCubeJOGLRenderer.DEFAULT_ZOOM * halfWidth/halfWidth3x3;
+	}
+	
+	// sets the camera the same way as RubiksCubeJOGLRenderer: angles are in degrees and zoom is the (negative) distance
+	// from the center of the cube
+	public void setCamera(float cameraAngleX, float cameraAngleY, float cameraAngleZ, float zoom) {
+		this.cameraAngleX = cameraAngleX;
+		this.cameraAngleY = cameraAngleY;
+		this.cameraAngleZ = cameraAngleZ;
+		this.zoom = zoom;
+		visibilityValid = false;
+	}
+	
+	// renders the cube's state and returns the image, which is reused (and overwritten) by the next render
+	public BufferedImage render(RubiksCube cube) {
+		if (!visibilityValid) {
+			buildVisibility();
+			visibilityValid = true;
+		}
+		
+		geometry.buildColors(cube);
+		FloatBuffer colors = geometry.getColors();
+		for (int quad=0; quad<quadColors.length; quad++) {
+			int i = quad*CubeGeometry.FLOATS_PER_QUAD;
+			quadColors[quad] = toRGB(colors.get(i), colors.get(i+1), colors.get(i+2));
+		}
+		
+		for (int i=0; i<pixels.length; i++) {
+			int quad = quadIds[i];
+			pixels[i] = (quad < 0) ? 0 : quadColors[quad];
+		}
+		return image;
+	}
+	
+	public void renderToFile(RubiksCube cube, File file) throws IOException {
+		if (!ImageIO.write(render(cube), "png", file)) throw new IOException("No PNG writer available");
+	}
+	
+	// projects every vertex with the current camera and rasterizes every quad into quadIds
+	private void buildVisibility() {
+		float[] rotation = new float[9];
+		if (!CubeGeometry.getRotation(cameraAngleX, cameraAngleY, cameraAngleZ, rotation)) {
+			rotation = new float[] { 1, 0, 0, 0, 1, 0, 0, 0, 1 };
+		}
+		
+		// gluPerspective() with the same field of view, mapped to pixels with y pointing down
+		float focalLength = (float) (1/Math.tan(Math.toRadians(RubiksCubeJOGLRenderer.FIELD_OF_VIEW_DEGREES/2)));
+		float aspect = (float) width/height;
+		
+		FloatBuffer vertices = geometry.getVertices();
+		for (int vertex=0; vertex<screenX.length; vertex++) {
+			float x = vertices.get(vertex*3), y = vertices.get(vertex*3+1), z = vertices.get(vertex*3+2);
+			float eyeX = rotation[0]*x + rotation[1]*y + rotation[2]*z;
+			float eyeY = rotation[3]*x + rotation[4]*y + rotation[5]*z;
+			float eyeZ = rotation[6]*x + rotation[7]*y + rotation[8]*z + zoom;
+			
+			float depth = Math.max(-eyeZ, NEAR_PLANE);
+			screenX[vertex] = (focalLength/aspect*eyeX/depth + 1) * width/2;
+			screenY[vertex] = (1 - focalLength*eyeY/depth) * height/2;
+			inverseDepths[vertex] = (-eyeZ < NEAR_PLANE) ? -1 : 1/depth;
+		}
+		
+		Arrays.fill(quadIds, -1);
+		Arrays.fill(depths, 0);
+		for (int quad=0; quad<quadColors.length; quad++) {
+			int first = quad*CubeGeometry.VERTICES_PER_QUAD;
+			rasterizeTriangle(quad, first, first+1, first+2);
+			rasterizeTriangle(quad, first, first+2, first+3);
+		}
+	}
+	
+	private void rasterizeTriangle(int quad, int a, int b, int c) {
+		// triangles that cross the near plane are behind the camera, which only happens when zoomed right in
+		if (inverseDepths[a] < 0 || inverseDepths[b] < 0 || inverseDepths[c] < 0) return;
+		
+		float area = edge(a, b, screenX[c], screenY[c]);
+		if (area == 0) return;
+		
+		int minX = Math.max(0, (int) Math.floor(Math.min(screenX[a], Math.min(screenX[b], screenX[c]))));
+		int maxX = Math.min(width-1, (int) Math.ceil(Math.max(screenX[a], Math.max(screenX[b], screenX[c]))));
+		int minY = Math.max(0, (int) Math.floor(Math.min(screenY[a], Math.min(screenY[b], screenY[c]))));
+		int maxY = Math.min(height-1, (int) Math.ceil(Math.max(screenY[a], Math.max(screenY[b], screenY[c]))));
+		
+		for (int y=minY; y<=maxY; y++) {
+			float pixelY = y + 0.5f;
+			for (int x=minX; x<=maxX; x++) {
+				float pixelX = x + 0.5f;
+				// barycentric weights, which all have the same sign as the area inside the triangle
+				float weightA = edge(b, c, pixelX, pixelY) / area;
+				float weightB = edge(c, a, pixelX, pixelY) / area;
+				float weightC = edge(a, b, pixelX, pixelY) / area;
+				if (weightA < 0 || weightB < 0 || weightC < 0) continue;
+				
+				// 1/depth is linear in screen space, so this is the exact depth of the plane at this pixel
+				float inverseDepth = weightA*inverseDepths[a] + weightB*inverseDepths[b] + weightC*inverseDepths[c];
+				int i = y*width + x;
+				if (inverseDepth > depths[i]) {
+					depths[i] = inverseDepth;
+					quadIds[i] = quad;
+				}
+			}
+		}
+	}
+	
+	// twice the signed area of the triangle formed by vertices a and b and the point
+	private float edge(int a, int b, float x, float y) {
+		return (screenX[b] - screenX[a])*(y - screenY[a]) - (screenY[b] - screenY[a])*(x - screenX[a]);
+	}
+	
+	private static int toRGB(float r, float g, float b) {
+		return (Math.round(r*255) << 16) | (Math.round(g*255) << 8) | Math.round(b*255);
+	}
+	
+	public static void main(String[] args) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+		
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+		int numImages = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_NUM_IMAGES;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_SEED;
+		File outputDirectory = new File((args.length > 3) ? args[3] : ".");
+		int imageSize = (args.length > 4) ? Integer.parseInt(args[4]) : DEFAULT_IMAGE_SIZE;
+		
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) throw new IOException("Unable to create " + outputDirectory);
+		
+		long start = System.currentTimeMillis();
+		RubiksCubeImageRenderer renderer = new RubiksCubeImageRenderer(size, imageSize, imageSize);
+		Scrambler scrambler = new Scrambler(size, seed);
+		RubiksCube cube = new RubiksCube(size);
+		for (int i=0; i<numImages; i++) {
+			cube.resetState();
+			scrambler.setSeed(seed + i);
+			scrambler.randomMoves(NUM_SCRAMBLE_MOVES);
+			scrambler.applyTo(cube);
+			renderer.renderToFile(cube, new File(outputDirectory, String.format("scramble-%05d.png", i)));
+		}
+		long end = System.currentTimeMillis();
+		
+		System.out.println("Rendered " + numImages + " images to " + outputDirectory);
+		System.out.println("total time (sec): " + (double) (end-start)/1000);
+		System.out.println("images/sec: " + (double) numImages*1000/Math.max(1, end-start));
+	}
+
+}
@@ -15,8 +15,13 @@ import static javax.media.opengl.fixedfunc.GLLightingFunc.GL_SMOOTH;
 import static javax.media.opengl.fixedfunc.GLMatrixFunc.GL_MODELVIEW;
 import static javax.media.opengl.fixedfunc.GLMatrixFunc.GL_PROJECTION;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
 
 import javax.media.opengl.GL2;
 import javax.media.opengl.GLAutoDrawable;
@@ -32,16 +37,49 @@ import com.jogamp.newt.event.MouseEvent;
 import com.jogamp.newt.event.MouseListener;
 import com.jogamp.newt.event.WindowAdapter;
 import com.jogamp.newt.event.WindowEvent;
+import com.jogamp.newt.event.WindowUpdateEvent;
 import com.jogamp.newt.opengl.GLWindow;
 import com.jogamp.opengl.util.FPSAnimator;
+import com.jogamp.opengl.util.gl2.GLUT;
 import com.xargsgrep.rubikscube.Cubie.Color;
 import com.xargsgrep.rubikscube.Rotation.Axis;
 import com.xargsgrep.rubikscube.Rotation.Direction;
 
 /*
  * Renders a Rubik's Cube using the JOGL 2.0 library. The size of the cube can be specified with
- * the first argument (default is 3). While any cube size can be rendered and scrambled, there are
- * only enough controls to manipulate a 3x3x3 cube.
+ * the first argument (default is 3) and the scramble seed with the second (default is random).
+ * While any cube size can be rendered and scrambled, there are only enough controls to manipulate
+ * a 3x3x3 cube.
+ *
+ * Solutions are cached by cube state. If the rubikscube.solutions.file system property is set the
+ * cache is loaded from that file on startup and saved to it on exit.
+ *
+ * The cube is drawn from vertex buffers (see VertexBufferCubeRenderer) unless the rubikscube.renderer
+ * system property is set to immediate or vertex buffers aren't supported, in which case every cubie
+ * is drawn in immediate mode.
+ *
+ * Frames are only drawn when something has changed: the cube's state (see RubiksCube.getVersion()), the camera or
+ * viewport (tracked by viewVersion) or the angle of a turning section. Otherwise display() returns without touching
+ * GL and the previous frame stays on screen, since buffers are only swapped after a frame has been drawn.
+ *
+ * Input handlers never touch the cube. Moves, scrambles and solutions are offered to a MoveQueue and display() starts
+ * the next move as soon as the previous one has been animated, and resets are done by display() too, so the cube and
+ * the animation state are only ever changed on the GL thread. A move made while a solution is being played is queued
+ * behind it. Anything that can't be done (a move while scrambling, solving a cube that isn't 3x3x3, a full queue) is
+ * reported with a status message at the bottom of the window instead.
+ *
+ * Animations are driven by the elapsed time rather than the number of frames, so dropped frames don't slow them down.
+ * The speed is set with the rubikscube.moves.per.second system property (a half turn counts as two moves). In instant
+ * mode, toggled with I or by setting the property to instant, queued moves are applied without being animated, as
+ * many as fit in a frame's time budget.
+ *
+ * Consecutive moves of the same sequence that turn different sections around the same axis commute, so they are
+ * batched and animated at the same time. Scrambles of big cubes are mostly made of such runs.
+ *
+ * Every drawn frame records its CPU time (animation update, geometry and draw calls) and every applied rotation its
+ * applyRotation() time in RenderMetrics. M toggles an overlay with the latest snapshot, and if the
+ * rubikscube.metrics.file system property is set every snapshot is also written to that file as CSV (or JSON if the
+ * file name ends with .json).
  */
 @SuppressWarnings("serial")
 public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener, KeyListener, MouseListener {
@@ -56,59 +94,145 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 	private static final float ONE_F  = 1.0f;
 	private static final float TWO_F  = 2.0f;
 	private static final float CUBIE_GAP_F = 0.1f; // gap between cubies
-	private static final float CUBIE_TRANSLATION_FACTOR = TWO_F + CUBIE_GAP_F;
+	static final float CUBIE_TRANSLATION_FACTOR = TWO_F + CUBIE_GAP_F;
 	
-	private static final float DEFAULT_CAMERA_ANGLE_X = 45.0f;
-	private static final float DEFAULT_CAMERA_ANGLE_Y = 45.0f;
-	private static final float DEFAULT_ZOOM = -18.0f;
+	static final float DEFAULT_CAMERA_ANGLE_X = 45.0f;
+	static final float DEFAULT_CAMERA_ANGLE_Y = 45.0f;
+	static final float DEFAULT_ZOOM = -18.0f;
+	static final float FIELD_OF_VIEW_DEGREES = 45.0f;
 	
 	private static final int SECTION_ROTATE_STEP_DEGREES = 90;
+	private static final float DEFAULT_MOVES_PER_SECOND = 10/3.0f; // same speed as the old 5 degrees per frame at 60 fps
+	private static final long MAX_ROTATION_LAG_NANOS = 100000000L; // how far behind an animation can fall before it stops catching up
+	private static final long INSTANT_MODE_FRAME_BUDGET_NANOS = 1000000000L/FPS/2; // time spent applying moves per frame in instant mode
+	private static final long STATUS_MESSAGE_NANOS = 3000000000L; // how long a status message is shown
 	private static final int CAMERA_ROTATE_STEP_DEGREES  = 5;
 	
+	private static final int MOVE_QUEUE_CAPACITY = 64;
+	private static final String MOVE_QUEUE_FULL_MESSAGE = "Too many moves queued, try again once some have been made";
+	
 	private static final int MIN_ZOOM = -80;
 	private static final int MAX_ZOOM = -10;
 	
+	private static final String SOLUTIONS_FILE_PROPERTY = "rubikscube.solutions.file";
+	private static final String RENDERER_PROPERTY = "rubikscube.renderer";
+	private static final String MOVES_PER_SECOND_PROPERTY = "rubikscube.moves.per.second";
+	private static final String METRICS_FILE_PROPERTY = "rubikscube.metrics.file";
+	
+	private static final int METRICS_MARGIN = 10;
+	private static final int METRICS_LINE_HEIGHT = 15;
+	
 	private GLU glu;
+	private GLUT glut;
+	private int viewportHeight = CANVAS_HEIGHT;
 	
 	private float cameraAngleX = DEFAULT_CAMERA_ANGLE_X;
 	private float cameraAngleY = DEFAULT_CAMERA_ANGLE_Y;
 	private float cameraAngleZ = ZERO_F;
 	private float zoom         = DEFAULT_ZOOM;
 	
+	private volatile int viewVersion; // bumped whenever the camera or viewport changes
+	private int drawnViewVersion = -1;
+	private long drawnStateVersion = -1;
+	
 	private float[] columnAnglesX;
 	private float[] rowAnglesY;
 	private float[] faceAnglesZ;
 	
-	private int rotatingSectionX = -1;
-	private int rotatingSectionY = -1;
-	private int rotatingSectionZ = -1;
-	private float angularVelocity = 5.0f; // speed and direction of rotating sections
+	private final List<Rotation> currentRotations = new ArrayList<Rotation>(); // turns of the same axis that are being animated together
+	private long rotationStartTime; // System.nanoTime() at which the current rotations started turning
+	private long rotationEndTime;
+	private long quarterTurnNanos = (long) (1000000000L/DEFAULT_MOVES_PER_SECOND);
+	private volatile boolean instantMode;
 	
 	private int mouseX = CANVAS_WIDTH/2;
 	private int mouseY = CANVAS_HEIGHT/2;
 	
 	private RubiksCube rubiksCube;
+	private Scrambler scrambler;
+	private SolutionCache solutionCache = new SolutionCache();
+	private VertexBufferCubeRenderer vertexBufferRenderer; // null when drawing in immediate mode
 	
-	private RotationAnimatorThread scrambleAnimatorThread;
-	private RotationAnimatorThread solutionAnimatorThread;
+	private final MoveQueue moveQueue = new MoveQueue(MOVE_QUEUE_CAPACITY);
+	private long scrambleTicket = -1; // tickets of the last scramble and solution offered to the move queue
+	private long solutionTicket = -1;
+	private volatile boolean resetRequested;
+	
+	private final RenderMetrics metrics = new RenderMetrics();
+	private volatile boolean showMetrics;
+	
+	// shown until System.nanoTime() reaches statusMessageEnd, see showStatusMessage()
+	private volatile String statusMessage;
+	private volatile long statusMessageEnd;
+	private boolean drawnStatusMessage;
 
 	public RubiksCubeJOGLRenderer(int size) {
+		this(size, System.nanoTime());
+	}
+	
+	public RubiksCubeJOGLRenderer(int size, long scrambleSeed) {
 		rubiksCube = new RubiksCube(size);
+		scrambler = new Scrambler(size, scrambleSeed);
 		this.columnAnglesX = new float[size];
 		this.rowAnglesY = new float[size];
 		this.faceAnglesZ = new float[size];
+		
+		String solutionsFile = System.getProperty(SOLUTIONS_FILE_PROPERTY);
+		if (solutionsFile != null) {
+			try { solutionCache.load(new File(solutionsFile)); }
+			catch (IOException e) { System.err.println("Unable to load solutions: " + e.getMessage()); }
+		}
+		
+		String movesPerSecond = System.getProperty(MOVES_PER_SECOND_PROPERTY);
+		if ("instant".equals(movesPerSecond)) {
+			instantMode = true;
+		}
+		else if (movesPerSecond != null) {
+			float rate = Float.parseFloat(movesPerSecond);
+			if (!(rate > 0)) throw new RuntimeException("Moves per second must be positive: " + movesPerSecond);
+			quarterTurnNanos = Math.max(1, (long) (1000000000L/rate));
+		}
+		
+		String metricsFile = System.getProperty(METRICS_FILE_PROPERTY);
+		if (metricsFile != null) {
+			try { metrics.setExportFile(new File(metricsFile)); }
+			catch (IOException e) { System.err.println("Unable to export metrics: " + e.getMessage()); }
+		}
+	}
+	
+	// saves the cached solutions if a solutions file was specified
+	public void saveSolutions() {
+		String solutionsFile = System.getProperty(SOLUTIONS_FILE_PROPERTY);
+		if (solutionsFile != null) {
+			try { solutionCache.save(new File(solutionsFile)); }
+			catch (IOException e) { System.err.println("Unable to save solutions: " + e.getMessage()); }
+		}
 	}
 	
 	@Override
 	public void init(GLAutoDrawable drawable) {
 		GL2 gl = drawable.getGL().getGL2();
 		glu = new GLU();
+		glut = new GLUT();
 		gl.glClearColor(ZERO_F, ZERO_F, ZERO_F, ZERO_F);
 		gl.glClearDepth(ONE_F); 
 		gl.glEnable(GL_DEPTH_TEST);
 		gl.glDepthFunc(GL_LEQUAL);
 		gl.glHint(GL_PERSPECTIVE_CORRECTION_HINT, GL_NICEST);
 		gl.glShadeModel(GL_SMOOTH);
+		
+		// buffers are swapped in display() only when a frame was actually drawn
+		drawable.setAutoSwapBufferMode(false);
+		
+		if (!"immediate".equals(System.getProperty(RENDERER_PROPERTY))) {
+			if (gl.isFunctionAvailable("glGenBuffers") && gl.isFunctionAvailable("glBufferSubData")) {
+				vertexBufferRenderer = new VertexBufferCubeRenderer(rubiksCube, CUBIE_TRANSLATION_FACTOR);
+				vertexBufferRenderer.init(gl);
+			}
+			else {
+				System.err.println("Vertex buffers are not supported, falling back to immediate mode");
+			}
+		}
 	}
 	
 	@Override
@@ -119,18 +243,51 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		float aspect = (float) width/height;
 		
 		gl.glViewport(0, 0, width, height);
+		viewportHeight = height;
 		gl.glMatrixMode(GL_PROJECTION);
 		gl.glLoadIdentity();
-		glu.gluPerspective(45.0, aspect, 0.1, 100.0);
+		glu.gluPerspective(FIELD_OF_VIEW_DEGREES, aspect, 0.1, 100.0);
 			 
 		gl.glMatrixMode(GL_MODELVIEW);
 		gl.glLoadIdentity();
+		viewVersion++;
 	}
 
 	@Override
 	public void display(GLAutoDrawable drawable) {
-		updateRotationAngles();
-		drawRubiksCube(drawable.getGL().getGL2());
+		long now = System.nanoTime();
+		boolean animating = isRotating();
+		if (resetRequested) resetCube();
+		if (instantMode) applyQueuedRotations(now);
+		else updateRotationAngles(now);
+		long updateEnd = System.nanoTime();
+		boolean refreshOverlay = metrics.update(updateEnd) && showMetrics;
+		
+		// nothing has moved since the last frame, so it's still on screen
+		long stateVersion = rubiksCube.getVersion();
+		int currentViewVersion = viewVersion;
+		String status = (now < statusMessageEnd) ? statusMessage : null;
+		if (!animating && !refreshOverlay && stateVersion == drawnStateVersion && currentViewVersion == drawnViewVersion && (status != null) == drawnStatusMessage) return;
+		drawnStateVersion = stateVersion;
+		drawnViewVersion = currentViewVersion;
+		drawnStatusMessage = (status != null);
+		
+		GL2 gl = drawable.getGL().getGL2();
+		long geometryStart = System.nanoTime();
+		if (vertexBufferRenderer != null) vertexBufferRenderer.update(gl, columnAnglesX, rowAnglesY, faceAnglesZ);
+		long drawStart = System.nanoTime();
+		drawRubiksCube(gl);
+		if (showMetrics) drawMetricsOverlay(gl);
+		if (status != null) drawStatusMessage(gl, status);
+		long drawEnd = System.nanoTime();
+		
+		metrics.recordFrame(updateEnd - now, drawStart - geometryStart, drawEnd - drawStart);
+		drawable.swapBuffers();
+	}
+	
+	// forces the next frame to be drawn even if nothing has changed, e.g. when the window needs to be repainted
+	public void requestRedraw() {
+		viewVersion++;
 	}
 	
 	private void drawRubiksCube(GL2 gl) {
@@ -143,10 +300,19 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		gl.glRotatef(cameraAngleY, ZERO_F, ONE_F, ZERO_F);
 		gl.glRotatef(cameraAngleZ, ZERO_F, ZERO_F, ONE_F);
 		
+		if (vertexBufferRenderer != null) {
+			vertexBufferRenderer.draw(gl);
+			return;
+		}
+		
 		int lastIdx = rubiksCube.getSize()-1;
 		for (int x=0; x<rubiksCube.getSize(); x++) {
 			for (int y=0; y<rubiksCube.getSize(); y++) {
 				for (int z=0; z<rubiksCube.getSize(); z++) {
+					// interior cubies can never be seen
+					int visibleFaces = rubiksCube.getVisibleFaces(x, y, z);
+					if (visibleFaces == 0) continue;
+					
 					gl.glPushMatrix();
 					
 					gl.glRotatef(columnAnglesX[x], ONE_F, ZERO_F, ZERO_F);
@@ -157,7 +323,7 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 					float t = (float) lastIdx/2;
 					gl.glTranslatef((x-t)*CUBIE_TRANSLATION_FACTOR, (y-t)*CUBIE_TRANSLATION_FACTOR, -(z-t)*CUBIE_TRANSLATION_FACTOR);
 					
-					drawCubie(gl, rubiksCube.getVisibleFaces(x, y, z), rubiksCube.getCubie(x, y, z));
+					drawCubie(gl, visibleFaces, x, y, z);
 						
 					gl.glPopMatrix();
 				}
@@ -165,12 +331,12 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		}
 	}
 	
-	private void drawCubie(GL2 gl, int visibleFaces, Cubie cubie) {
+	private void drawCubie(GL2 gl, int visibleFaces, int x, int y, int z) {
 		gl.glBegin(GL_QUADS);
 		
 		// top face
 		gl.glColor3f(ZERO_F, ZERO_F, ZERO_F);
-		if ((visibleFaces & Cubie.FACELET_TOP) > 0) glApplyColor(gl, cubie.topColor);
+		if ((visibleFaces & Cubie.FACELET_TOP) > 0) glApplyColor(gl, rubiksCube.getFaceletColor(x, y, z, Cubie.FACELET_TOP));
 		gl.glVertex3f(ONE_F, ONE_F, -ONE_F);
 		gl.glVertex3f(-ONE_F, ONE_F, -ONE_F);
 		gl.glVertex3f(-ONE_F, ONE_F, ONE_F);
@@ -178,7 +344,7 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 	 
 		// bottom face
 		gl.glColor3f(ZERO_F, ZERO_F, ZERO_F);
-		if ((visibleFaces & Cubie.FACELET_BOTTOM) > 0) glApplyColor(gl, cubie.bottomColor);
+		if ((visibleFaces & Cubie.FACELET_BOTTOM) > 0) glApplyColor(gl, rubiksCube.getFaceletColor(x, y, z, Cubie.FACELET_BOTTOM));
 		gl.glVertex3f(ONE_F, -ONE_F, ONE_F);
 		gl.glVertex3f(-ONE_F, -ONE_F, ONE_F);
 		gl.glVertex3f(-ONE_F, -ONE_F, -ONE_F);
@@ -186,7 +352,7 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 			 
 		// front face
 		gl.glColor3f(ZERO_F, ZERO_F, ZERO_F);
-		if ((visibleFaces & Cubie.FACELET_FRONT) > 0) glApplyColor(gl, cubie.frontColor);
+		if ((visibleFaces & Cubie.FACELET_FRONT) > 0) glApplyColor(gl, rubiksCube.getFaceletColor(x, y, z, Cubie.FACELET_FRONT));
 		gl.glVertex3f(ONE_F, ONE_F, ONE_F);
 		gl.glVertex3f(-ONE_F, ONE_F, ONE_F);
 		gl.glVertex3f(-ONE_F, -ONE_F, ONE_F);
@@ -194,7 +360,7 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 			 
 		// rear face
 		gl.glColor3f(ZERO_F, ZERO_F, ZERO_F);
-		if ((visibleFaces & Cubie.FACELET_REAR) > 0) glApplyColor(gl, cubie.rearColor);
+		if ((visibleFaces & Cubie.FACELET_REAR) > 0) glApplyColor(gl, rubiksCube.getFaceletColor(x, y, z, Cubie.FACELET_REAR));
 		gl.glVertex3f(ONE_F, -ONE_F, -ONE_F);
 		gl.glVertex3f(-ONE_F, -ONE_F, -ONE_F);
 		gl.glVertex3f(-ONE_F, ONE_F, -ONE_F);
@@ -202,7 +368,7 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 			 
 		// left face
 		gl.glColor3f(ZERO_F, ZERO_F, ZERO_F);
-		if ((visibleFaces & Cubie.FACELET_LEFT) > 0) glApplyColor(gl, cubie.leftColor);
+		if ((visibleFaces & Cubie.FACELET_LEFT) > 0) glApplyColor(gl, rubiksCube.getFaceletColor(x, y, z, Cubie.FACELET_LEFT));
 		gl.glVertex3f(-ONE_F, ONE_F, ONE_F);
 		gl.glVertex3f(-ONE_F, ONE_F, -ONE_F);
 		gl.glVertex3f(-ONE_F, -ONE_F, -ONE_F);
@@ -210,7 +376,7 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 	 
 		// right face
 		gl.glColor3f(ZERO_F, ZERO_F, ZERO_F);
-		if ((visibleFaces & Cubie.FACELET_RIGHT) > 0) glApplyColor(gl, cubie.rightColor);
+		if ((visibleFaces & Cubie.FACELET_RIGHT) > 0) glApplyColor(gl, rubiksCube.getFaceletColor(x, y, z, Cubie.FACELET_RIGHT));
 		gl.glVertex3f(ONE_F, ONE_F, -ONE_F);
 		gl.glVertex3f(ONE_F, ONE_F, ONE_F);
 		gl.glVertex3f(ONE_F, -ONE_F, ONE_F);
@@ -219,100 +385,220 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		gl.glEnd();
 	}
 	
-	private void glApplyColor(GL2 gl, Color color) {
-		switch (color) {
-			case WHITE:
-				gl.glColor3f(ONE_F, ONE_F, ONE_F); break;
-			case YELLOW:
-				gl.glColor3f(ONE_F, ONE_F, ZERO_F); break;
-			case GREEN:
-				gl.glColor3f(ZERO_F, ONE_F, ZERO_F); break;
-			case ORANGE:
-				gl.glColor3f(ONE_F, ONE_F/2, ZERO_F); break;
-			case BLUE:
-				gl.glColor3f(ZERO_F, ZERO_F, ONE_F); break;
-			case RED:
-				gl.glColor3f(ONE_F, ZERO_F, ZERO_F); break;
+	// draws the latest metrics snapshot in the top left corner, on top of the cube
+	private void drawMetricsOverlay(GL2 gl) {
+		RenderMetrics.Snapshot snapshot = metrics.getSnapshot();
+		String[] lines = (snapshot != null) ? snapshot.toLines() : new String[] { "Collecting metrics..." };
+		
+		// window positions aren't affected by the camera transformations
+		gl.glDisable(GL_DEPTH_TEST);
+		gl.glColor3f(ONE_F, ONE_F, ONE_F);
+		for (int i=0; i<lines.length; i++) {
+			gl.glWindowPos2i(METRICS_MARGIN, viewportHeight - METRICS_MARGIN - (i+1)*METRICS_LINE_HEIGHT);
+			glut.glutBitmapString(GLUT.BITMAP_8_BY_13, lines[i]);
 		}
+		gl.glEnable(GL_DEPTH_TEST);
+	}
+	
+	// draws the message in the bottom left corner, on top of the cube
+	private void drawStatusMessage(GL2 gl, String message) {
+		gl.glDisable(GL_DEPTH_TEST);
+		gl.glColor3f(ONE_F, ONE_F, ONE_F);
+		gl.glWindowPos2i(METRICS_MARGIN, METRICS_MARGIN);
+		glut.glutBitmapString(GLUT.BITMAP_8_BY_13, message);
+		gl.glEnable(GL_DEPTH_TEST);
+	}
+	
+	// shows the message for STATUS_MESSAGE_NANOS, can be called from any thread
+	private void showStatusMessage(String message) {
+		statusMessage = message;
+		statusMessageEnd = System.nanoTime() + STATUS_MESSAGE_NANOS;
+		viewVersion++;
+	}
+	
+	private void glApplyColor(GL2 gl, Color color) {
+		float[] rgb = CubeGeometry.getRGB(color);
+		gl.glColor3f(rgb[0], rgb[1], rgb[2]);
 	}
 	
 	private boolean isRotating() {
-		return rotatingSectionX + rotatingSectionY + rotatingSectionZ > -3;
+		return !currentRotations.isEmpty();
 	}
 	
-	private void updateRotationAngles() {
-		Direction direction = (angularVelocity > 0) ? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE;
+	// sets the section angles to where the queued moves should be at the specified time. every batch that should have
+	// finished by then is applied, and each following batch starts when the one before it ended, so the animation
+	// keeps the same pace however many frames are dropped (after a long stall it picks up from MAX_ROTATION_LAG_NANOS
+	// ago instead of replaying every move it missed)
+	private void updateRotationAngles(long now) {
+		if (!isRotating()) startNextRotations(now);
 		
-		if (rotatingSectionX >= 0) {
-			columnAnglesX[rotatingSectionX] += angularVelocity;
-			if (columnAnglesX[rotatingSectionX] % SECTION_ROTATE_STEP_DEGREES == 0) {
-				columnAnglesX[rotatingSectionX] = 0;
-				rubiksCube.applyRotation(new Rotation(Axis.X, rotatingSectionX, direction));
-				rotatingSectionX = -1;
+		while (isRotating()) {
+			if (now >= rotationEndTime) {
+				long endTime = rotationEndTime;
+				finishRotations();
+				startNextRotations(Math.max(endTime, now - MAX_ROTATION_LAG_NANOS));
+				continue;
 			}
-		}
-		else if (rotatingSectionY >= 0) {
-			rowAnglesY[rotatingSectionY] += angularVelocity;
-			if (rowAnglesY[rotatingSectionY] % SECTION_ROTATE_STEP_DEGREES == 0) {
-				rowAnglesY[rotatingSectionY] = 0;
-				rubiksCube.applyRotation(new Rotation(Axis.Y, rotatingSectionY, direction));
-				rotatingSectionY = -1;
+			
+			// every rotation turns at the same speed, so quarter turns finish before half turns in the same batch
+			for (Rotation rotation : currentRotations) {
+				// a half turn is a single 180 degree sweep. positive angles turn sections counter clockwise
+				float targetAngle = rotation.isHalfTurn() ? 2*SECTION_ROTATE_STEP_DEGREES : SECTION_ROTATE_STEP_DEGREES;
+				float angle = targetAngle * Math.min(1.0f, (float) (now - rotationStartTime) / getDuration(rotation));
+				if (rotation.isClockwise()) angle = -angle;
+				
+				float[] angles = getSectionAngles(rotation.getAxis());
+				int endSection = rotation.getSection() + rotation.getWidth();
+				for (int section=rotation.getSection(); section<endSection; section++) angles[section] = angle;
 			}
+			return;
 		}
-		else if (rotatingSectionZ >= 0) {
-			faceAnglesZ[rotatingSectionZ] += angularVelocity;
-			if (faceAnglesZ[rotatingSectionZ] % SECTION_ROTATE_STEP_DEGREES == 0) {
-				faceAnglesZ[rotatingSectionZ] = 0;
-				rubiksCube.applyRotation(new Rotation(Axis.Z, rotatingSectionZ, direction));
-				rotatingSectionZ = -1;
-			}
+	}
+	
+	private long getDuration(Rotation rotation) {
+		return rotation.isHalfTurn() ? 2*quarterTurnNanos : quarterTurnNanos;
+	}
+	
+	// applies queued moves without animating them until there are none left or the frame's time budget is used up
+	private void applyQueuedRotations(long now) {
+		long deadline = now + INSTANT_MODE_FRAME_BUDGET_NANOS;
+		do {
+			if (isRotating()) finishRotations();
+			startNextRotations(now);
+		}
+		while (isRotating() && System.nanoTime() < deadline);
+	}
+	
+	// applies the current rotations to the cube and puts their sections back at rest
+	private void finishRotations() {
+		for (Rotation rotation : currentRotations) {
+			float[] angles = getSectionAngles(rotation.getAxis());
+			int endSection = rotation.getSection() + rotation.getWidth();
+			for (int section=rotation.getSection(); section<endSection; section++) angles[section] = 0;
+			long start = System.nanoTime();
+			rubiksCube.applyRotation(rotation);
+			metrics.recordRotation(System.nanoTime() - start);
+		}
+		currentRotations.clear();
+	}
+	
+	private float[] getSectionAngles(Axis axis) {
+		switch (axis) {
+			case X:  return columnAnglesX;
+			case Y:  return rowAnglesY;
+			default: return faceAnglesZ;
 		}
 	}
 	
 	// section is the index of the column/row/face that is to be rotated.
 	// if reverse is true then rotation will be clockwise
 	private void rotateSection(int section, Axis axis, boolean reverse) {
-		// make sure nothing is currently rotating
-		if (!isRotating()) {
-			if (axis == Axis.X) rotatingSectionX = section;
-			if (axis == Axis.Y) rotatingSectionY = section;
-			if (axis == Axis.Z) rotatingSectionZ = section;
-			angularVelocity = reverse ? -Math.abs(angularVelocity) : Math.abs(angularVelocity);
+		// scrambles never end, so a move queued behind one would never be made. moves made while solving are queued
+		// behind the solution
+		if (moveQueue.isPending(scrambleTicket)) {
+			showStatusMessage("Stop scrambling (J) before turning sections");
+			return;
 		}
+		if (moveQueue.offer(Rotation.valueOf(axis, section, reverse ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE)) < 0) showStatusMessage(MOVE_QUEUE_FULL_MESSAGE);
 	}
 	
-	private void toggleScrambleCube() {
-		if (scrambleAnimatorThread == null || !scrambleAnimatorThread.isAlive()) {
-			scrambleAnimatorThread = new RotationAnimatorThread() {
-				@Override protected int getSection(int i) { return new Random().nextInt(rubiksCube.getSize()); }
-				@Override protected Axis getAxis(int i) { return Axis.values()[new Random().nextInt(Axis.values().length)]; }
-				@Override protected boolean isReverse(int i) { return new Random().nextBoolean(); }
-				@Override protected boolean isComplete(int i) { return false; }
-			};
-			scrambleAnimatorThread.start();
+	// called when nothing is rotating, starts the next queued move (if there is one) at the specified time along with
+	// the moves right after it that turn other sections around the same axis
+	private void startNextRotations(long startTime) {
+		Rotation first = moveQueue.poll();
+		if (first == null) return;
+		
+		currentRotations.add(first);
+		rotationStartTime = startTime;
+		rotationEndTime = startTime + getDuration(first);
+		
+		Rotation next;
+		while ((next = moveQueue.peek()) != null && canTurnWithCurrentRotations(next)) {
+			currentRotations.add(moveQueue.poll());
+			rotationEndTime = Math.max(rotationEndTime, startTime + getDuration(next));
 		}
-		else {
-			scrambleAnimatorThread.terminate();
+	}
+	
+	// returns true if the rotation turns the same axis as the current rotations and none of the same sections
+	private boolean canTurnWithCurrentRotations(Rotation rotation) {
+		for (Rotation current : currentRotations) {
+			if (current.getAxis() != rotation.getAxis()) return false;
+			int end = rotation.getSection() + rotation.getWidth(), currentEnd = current.getSection() + current.getWidth();
+			if (rotation.getSection() < currentEnd && current.getSection() < end) return false;
 		}
+		return true;
 	}
 	
-	private void toggleSolveCube() {
-		if (solutionAnimatorThread == null || !solutionAnimatorThread.isAlive()) {
-			RubiksCubeSolver solver = new LameRubiksCubeSolver(rubiksCube.getCopy());
-			final List<Rotation> rotations = solver.getSolution();
-			System.out.println("Found solution with " + rotations.size() + " moves");
+	// called by display(), drops the rotation in progress along with its section angles
+	private void resetCube() {
+		resetRequested = false;
+		currentRotations.clear();
+		Arrays.fill(columnAnglesX, ZERO_F);
+		Arrays.fill(rowAnglesY, ZERO_F);
+		Arrays.fill(faceAnglesZ, ZERO_F);
+		rubiksCube.resetState();
+	}
+	
+	private void toggleScrambleCube() {
+		if (moveQueue.isPending(scrambleTicket)) {
+			moveQueue.cancel();
+			return;
+		}
 		
-			solutionAnimatorThread = new RotationAnimatorThread() {
-				@Override protected int getSection(int i) { return rotations.get(i).getSection(); }
-				@Override protected Axis getAxis(int i) { return rotations.get(i).getAxis(); }
-				@Override protected boolean isReverse(int i) { return rotations.get(i).isClockwise(); }
-				@Override protected boolean isComplete(int i) { return (i == rotations.size()); }
-			};
-			solutionAnimatorThread.start();
+		// scrambles go on until they're cancelled. the scrambler is only used by the GL thread from here on
+		moveQueue.cancel();
+		scrambleTicket = moveQueue.offer(new Iterator<Rotation>() {
+			@Override public boolean hasNext() { return true; }
+			@Override public Rotation next() { return scrambler.nextMove(); }
+		});
+		if (scrambleTicket < 0) showStatusMessage(MOVE_QUEUE_FULL_MESSAGE);
+	}
+	
+	private void toggleSolveCube() {
+		if (moveQueue.isPending(solutionTicket)) {
+			moveQueue.cancel();
+			return;
 		}
-		else {
-			solutionAnimatorThread.terminate();
+		
+		if (rubiksCube.getSize() != 3) {
+			showStatusMessage("Only 3x3x3 cubes can be solved");
+			return;
 		}
+		
+		// the solution is found when display() reaches it, from the state every earlier move has left the cube in. if
+		// the solver fails the solution is left empty, so the failure can't stop display()
+		moveQueue.cancel();
+		solutionTicket = moveQueue.offer(new Iterator<Rotation>() {
+			private Iterator<Rotation> solution;
+			
+			@Override
+			public boolean hasNext() {
+				if (solution == null) {
+					try {
+						solution = solve().iterator();
+					}
+					catch (RuntimeException e) {
+						solution = Collections.<Rotation>emptyList().iterator();
+						showStatusMessage("Unable to solve the cube: " + e.getMessage());
+					}
+				}
+				return solution.hasNext();
+			}
+			
+			@Override
+			public Rotation next() {
+				hasNext();
+				return solution.next();
+			}
+		});
+		if (solutionTicket < 0) showStatusMessage(MOVE_QUEUE_FULL_MESSAGE);
+	}
+	
+	private List<Rotation> solve() {
+		RubiksCubeSolver solver = new CachingRubiksCubeSolver(new LameRubiksCubeSolver(rubiksCube.getCopy()), solutionCache);
+		List<Rotation> rotations = solver.getOptimizedSolution();
+		System.out.println("Found solution with " + rotations.size() + " moves (solution cache hits: " + solutionCache.getHits() + ", misses: " + solutionCache.getMisses() + ")");
+		return rotations;
 	}
 	
 	@Override
@@ -320,17 +606,21 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		switch (e.getKeyCode()) {
 			case KeyEvent.VK_UP:
 				cameraAngleX -= CAMERA_ROTATE_STEP_DEGREES;
+				viewVersion++;
 				break;
 			case KeyEvent.VK_DOWN:
 				cameraAngleX += CAMERA_ROTATE_STEP_DEGREES;
+				viewVersion++;
 				break;
 			case KeyEvent.VK_LEFT:
 				if (e.isShiftDown()) cameraAngleZ += CAMERA_ROTATE_STEP_DEGREES;
 				else cameraAngleY -= CAMERA_ROTATE_STEP_DEGREES;
+				viewVersion++;
 				break;
 			case KeyEvent.VK_RIGHT:
 				if (e.isShiftDown()) cameraAngleZ -= CAMERA_ROTATE_STEP_DEGREES;
 				else cameraAngleY += CAMERA_ROTATE_STEP_DEGREES;
+				viewVersion++;
 				break;
 			case KeyEvent.VK_Q:
 				rotateSection(RubiksCube.COLUMN_LEFT, Axis.X, e.isShiftDown()); break;
@@ -356,17 +646,23 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 			case KeyEvent.VK_B:
 				toggleSolveCube();
 				break;
+			case KeyEvent.VK_I:
+				instantMode = !instantMode;
+				break;
+			case KeyEvent.VK_M:
+				showMetrics = !showMetrics;
+				viewVersion++;
+				break;
 			case KeyEvent.VK_R:
 				cameraAngleX = DEFAULT_CAMERA_ANGLE_X;
 				cameraAngleY = DEFAULT_CAMERA_ANGLE_Y;
 				cameraAngleZ = ZERO_F;
 				zoom = DEFAULT_ZOOM;
 				if (e.isShiftDown()) {
-					columnAnglesX = new float[rubiksCube.getSize()];
-					rowAnglesY = new float[rubiksCube.getSize()];
-					faceAnglesZ = new float[rubiksCube.getSize()];
-					rubiksCube.resetState();
+					moveQueue.cancel();
+					resetRequested = true;
 				}
+				viewVersion++;
 				break;
 		}
 	}
@@ -376,6 +672,7 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		zoom += 2*e.getWheelRotation();
 		if (zoom > MAX_ZOOM) zoom = MAX_ZOOM;
 		if (zoom < MIN_ZOOM) zoom = MIN_ZOOM;
+		viewVersion++;
 	}
 	
 	@Override
@@ -390,9 +687,16 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		
 		mouseX = e.getX();
 		mouseY = e.getY();
+		viewVersion++;
+	}
+	
+	@Override
+	public void dispose(GLAutoDrawable drawable) {
+		if (vertexBufferRenderer != null) vertexBufferRenderer.dispose(drawable.getGL().getGL2());
+		try { metrics.closeExportFile(); }
+		catch (IOException e) { System.err.println("Unable to export metrics: " + e.getMessage()); }
 	}
 	
-	@Override public void dispose(GLAutoDrawable drawable) { }
 	@Override public void keyReleased(KeyEvent e) { }
 	@Override public void keyTyped(KeyEvent e) { }
 	@Override public void mouseClicked(MouseEvent e) { }
@@ -407,6 +711,10 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		GLCapabilities caps = new GLCapabilities(glp);
 		GLWindow window = GLWindow.create(caps);
 		 
+		int size = (args.length >= 1) ? Integer.parseInt(args[0]) : 3;
+		long scrambleSeed = (args.length >= 2) ? Long.parseLong(args[1]) : System.nanoTime();
+		final RubiksCubeJOGLRenderer cube = new RubiksCubeJOGLRenderer(size, scrambleSeed);
+		
 		final FPSAnimator animator = new FPSAnimator(window, FPS, true);
 		window.addWindowListener(new WindowAdapter() {
 			@Override
@@ -415,14 +723,17 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 					@Override
 					public void run() {
 						animator.stop();
+						cube.saveSolutions();
 						System.exit(0);
 					}
 				}.start();
 			};
+			@Override
+			public void windowRepaint(WindowUpdateEvent e) {
+				cube.requestRedraw();
+			}
 		});
 		 
-		int size = (args.length == 1) ? Integer.parseInt(args[0]) : 3;
-		RubiksCubeJOGLRenderer cube = new RubiksCubeJOGLRenderer(size);
 		window.addGLEventListener(cube);
 		window.addKeyListener(cube);
 		window.addMouseListener(cube);
@@ -432,28 +743,4 @@ public class RubiksCubeJOGLRenderer extends GLCanvas implements GLEventListener,
 		animator.start();	
 	}
 	
-	private abstract class RotationAnimatorThread extends Thread {
-		private boolean isTerminated = false;
-		
-		public void terminate() { isTerminated = true; }
-		
-		protected abstract int getSection(int i);
-		protected abstract Axis getAxis(int i);
-		protected abstract boolean isReverse(int i);
-		protected abstract boolean isComplete(int i);
-		
-		@Override
-		public void run() {
-			int i = 0;
-			while (!isTerminated && !isComplete(i)) {
-				while (isRotating()) {
-					try { Thread.sleep(10); }
-					catch (InterruptedException e) { }
-				}
-				rotateSection(getSection(i), getAxis(i), isReverse(i));
-				i++;
-			}
-		}
-	}
-	
 }
\ No newline at end of file
@@ -5,11 +5,23 @@ import java.util.List;
 
 public abstract class RubiksCubeSolver {
 	
+	public static final CubiePosition CENTER_FRONT              = new CubiePosition(1, 1, 0);
+	public static final CubiePosition CENTER_REAR               = new CubiePosition(1, 1, 2);
+	public static final CubiePosition CENTER_TOP                = new CubiePosition(1, 2, 1);
+	public static final CubiePosition CENTER_BOTTOM             = new CubiePosition(1, 0, 1);
+	public static final CubiePosition CENTER_LEFT               = new CubiePosition(0, 1, 1);
+	public static final CubiePosition CENTER_RIGHT              = new CubiePosition(2, 1, 1);
+	
 	protected RubiksCube cube;
 	protected List<Rotation> rotations;
 
 	public abstract List<Rotation> getSolution();
 	
+	// returns the solution with redundant rotations removed, see MoveSequenceOptimizer
+	public List<Rotation> getOptimizedSolution() {
+		return MoveSequenceOptimizer.optimize(getSolution(), cube.getSize());
+	}
+	
 	public RubiksCubeSolver(RubiksCube cube) {
 		this.cube = cube;
 		this.rotations = new ArrayList<Rotation>();
@@ -20,4 +32,21 @@ public abstract class RubiksCubeSolver {
 		cube.applyRotation(rotation);
 	}
 	
+	// relabels the colors of the cube so that the center of each side has the solved color of that side. solvers call
+	// this instead of turning the middle slices to get the cube into a known orientation (white on the front and green
+	// on the top). a solution for the relabeled cube leaves every side a single color, so it solves the original cube
+	// in its current orientation. cubes without centers (even sizes) are left alone
+	protected void remapColors() {
+		int size = cube.getSize();
+		if (size % 2 == 0) return;
+		
+		byte[] facelets = cube.getFacelets();
+		byte[] colors = new byte[RubiksCube.NUM_SIDES];
+		int center = (size/2)*size + size/2;
+		for (int side=0; side<RubiksCube.NUM_SIDES; side++) {
+			colors[facelets[side*size*size + center]] = (byte) RubiksCube.SOLVED_STATE_COLORS[side].ordinal();
+		}
+		cube.recolor(colors);
+	}
+	
 }
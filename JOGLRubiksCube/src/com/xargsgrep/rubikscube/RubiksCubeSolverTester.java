@@ -6,106 +6,194 @@ package com.xargsgrep.rubikscube;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-
-import com.xargsgrep.rubikscube.Rotation.Axis;
-import com.xargsgrep.rubikscube.Rotation.Direction;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/*
+ * Solves a batch of scrambled cubes and reports statistics about the solutions. Cycles are spread over a pool of
+ * worker threads, each of which creates its own scrambler, cubes and solvers, and the statistics are aggregated with atomic
+ * variables. Each cycle's scramble only depends on the seed and the cycle number, so the results (and the checksum
+ * that summarizes them) are the same regardless of the number of workers.
+ *
+ * Each cycle also checks that the MoveSequenceOptimizer never makes a sequence longer or changes its effect, on the
+ * solution and on a random sequence of wide, half and quarter turns (which the solver doesn't produce).
+ *
+ * Usage: RubiksCubeSolverTester [numWorkers] [numCycles] [seed]
+ */
 public class RubiksCubeSolverTester {
 	
+	private static final int DEFAULT_NUM_CYCLES = 10000;
+	private static final long DEFAULT_SEED = 0;
+	private static final int NUM_SCRAMBLE_MOVES = 100;
+	private static final int NUM_OPTIMIZER_MOVES = 8;
+	
+	private final int numCycles;
+	private final long seed;
+	private final int progressStep;
+	
+	private final AtomicInteger nextCycle = new AtomicInteger();
+	private final AtomicInteger completedCycles = new AtomicInteger();
+	private final AtomicInteger invalidSolutions = new AtomicInteger();
+	private final AtomicInteger optimizerFailures = new AtomicInteger();
+	private final AtomicInteger minSolutionLength = new AtomicInteger(Integer.MAX_VALUE);
+	private final AtomicInteger maxSolutionLength = new AtomicInteger(Integer.MIN_VALUE);
+	private final AtomicLong solutionLengthsSum = new AtomicLong();
+	private final AtomicInteger minOptimizedSolutionLength = new AtomicInteger(Integer.MAX_VALUE);
+	private final AtomicInteger maxOptimizedSolutionLength = new AtomicInteger(Integer.MIN_VALUE);
+	private final AtomicLong optimizedSolutionLengthsSum = new AtomicLong();
+	private final AtomicLong resultsChecksum = new AtomicLong();
+	
+	public RubiksCubeSolverTester(int numCycles, long seed) {
+		this.numCycles = numCycles;
+		this.seed = seed;
+		this.progressStep = Math.max(1, numCycles/10);
+	}
+	
 	public static void main(String[] args) {
-		int minSolutionLength = -1;
-		int maxSolutionLength = -1;
-		int solutionLengthsSum = 0;
-		
-		int numCycles = 10000;
-		int numScrambleMoves = 100;
-		int invalidSolutions = 0;
-		int progressStep = numCycles/10;
+		int numWorkers = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int numCycles = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_NUM_CYCLES;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_SEED;
 		
+		new RubiksCubeSolverTester(numCycles, seed).run(numWorkers);
+	}
+	
+	public void run(int numWorkers) {
 		long start = System.currentTimeMillis();
 		
-		for (int i=0; i<numCycles; i++) {
-			RubiksCube cube = new RubiksCube(3);
-			
-			scrambleCube(cube, numScrambleMoves);
-			
-			RubiksCubeSolver solver = new LameRubiksCubeSolver(cube.getCopy());
-			List<Rotation> solution = solver.getSolution();
-			invalidSolutions += isValidSolution(cube, solution) ? 0 : 1;
-			
-			solutionLengthsSum += solution.size();
-			if (solution.size() < minSolutionLength || minSolutionLength == -1) minSolutionLength = solution.size();
-			if (solution.size() > maxSolutionLength || maxSolutionLength == -1) maxSolutionLength = solution.size();
-			
-			if ((i+1) % progressStep == 0) System.out.println("Progress: " + (i+1));
+		ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+		List<Future<?>> futures = new ArrayList<Future<?>>(numWorkers);
+		for (int i=0; i<numWorkers; i++) {
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					Scrambler scrambler = new Scrambler(3, seed);
+					int cycle;
+					while ((cycle = nextCycle.getAndIncrement()) < numCycles) runCycle(cycle, scrambler);
+				}
+			}));
+		}
+		executor.shutdown();
+		
+		try {
+			for (Future<?> future : futures) future.get();
+		}
+		catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for workers", e);
+		}
+		catch (ExecutionException e) {
+			executor.shutdownNow();
+			throw new RuntimeException("Worker failed", e.getCause());
 		}
 		
 		long end = System.currentTimeMillis();
 		
 		System.out.println();
 		System.out.println("Num cycles: " + numCycles);
-		System.out.println("Invalid solutions: " + invalidSolutions);
+		System.out.println("Num workers: " + numWorkers);
+		System.out.println("Seed: " + seed);
+		System.out.println("Invalid solutions: " + invalidSolutions.get());
+		System.out.println("Optimizer failures: " + optimizerFailures.get());
 		
-		System.out.println("Min solution length: " + minSolutionLength);
-		System.out.println("Max solution length: " + maxSolutionLength);
-		System.out.println("Avg solution length: " + (double) solutionLengthsSum/numCycles);
+		System.out.println("Min solution length: " + minSolutionLength.get());
+		System.out.println("Max solution length: " + maxSolutionLength.get());
+		System.out.println("Avg solution length: " + (double) solutionLengthsSum.get()/numCycles);
+		System.out.println("Min optimized solution length: " + minOptimizedSolutionLength.get());
+		System.out.println("Max optimized solution length: " + maxOptimizedSolutionLength.get());
+		System.out.println("Avg optimized solution length: " + (double) optimizedSolutionLengthsSum.get()/numCycles);
+		System.out.println("Results checksum: " + Long.toHexString(resultsChecksum.get()));
 		
 		System.out.println("total time (sec): " + (double) (end-start)/1000);
+		System.out.println("solves/sec: " + (double) numCycles*1000/Math.max(1, end-start));
 	}
 	
-	private static void scrambleCube(RubiksCube cube, int numMoves) {
-		List<Rotation> rotations = new ArrayList<Rotation>(numMoves);
-		for (int i=0; i<numMoves; i++) {
-			int section = new Random().nextInt(cube.getSize());
-			Axis axis = Axis.values()[new Random().nextInt(Axis.values().length)];
-			Direction direction = new Random().nextBoolean() ? Direction.CLOCKWISE : Direction.COUNTER_CLOCKWISE;
-			rotations.add(new Rotation(axis, section, direction));
-		}
+	private void runCycle(int cycle, Scrambler scrambler) {
+		RubiksCube cube = new RubiksCube(3);
 		
-		for (Rotation rotation : rotations) {
-			cube.applyRotation(rotation);
+		scrambler.setSeed(getCycleSeed(cycle));
+		scrambler.randomMoves(NUM_SCRAMBLE_MOVES);
+		scrambler.applyTo(cube);
+		
+		RubiksCubeSolver solver = new LameRubiksCubeSolver(cube.getCopy());
+		List<Rotation> solution = solver.getSolution();
+		List<Rotation> optimizedSolution = MoveSequenceOptimizer.optimize(solution, cube.getSize());
+		if (!isValidSolution(cube.getCopy(), solution) || !isValidSolution(cube, optimizedSolution)) invalidSolutions.incrementAndGet();
+		if (optimizedSolution.size() > solution.size() || !checkOptimizer(cycle)) optimizerFailures.incrementAndGet();
+		
+		int length = solution.size();
+		solutionLengthsSum.addAndGet(length);
+		updateMin(minSolutionLength, length);
+		updateMax(maxSolutionLength, length);
+		
+		int optimizedLength = optimizedSolution.size();
+		optimizedSolutionLengthsSum.addAndGet(optimizedLength);
+		updateMin(minOptimizedSolutionLength, optimizedLength);
+		updateMax(maxOptimizedSolutionLength, optimizedLength);
+		
+		// order independent so that it doesn't depend on how the cycles were scheduled
+		resultsChecksum.addAndGet(mix(getCycleSeed(cycle) + length*31 + optimizedLength));
+		
+		int completed = completedCycles.incrementAndGet();
+		if (completed % progressStep == 0) System.out.println("Progress: " + completed);
+	}
+	
+	// optimizes a short random sequence of wide, half and quarter turns around mostly the same axis (so that there is
+	// something to optimize) and checks that the result is no longer and has the same effect on the cube
+	private boolean checkOptimizer(int cycle) {
+		SplittableRandom random = new SplittableRandom(getCycleSeed(cycle) ^ 0x5DEECE66DL);
+		int size = 2 + random.nextInt(5);
+		Rotation.Axis[] axes = Rotation.Axis.values();
+		Rotation.Direction[] directions = Rotation.Direction.values();
+		
+		List<Rotation> rotations = new ArrayList<Rotation>(NUM_OPTIMIZER_MOVES);
+		Rotation.Axis axis = axes[random.nextInt(axes.length)];
+		for (int i=0; i<NUM_OPTIMIZER_MOVES; i++) {
+			if (random.nextInt(4) == 0) axis = axes[random.nextInt(axes.length)];
+			int section = random.nextInt(size);
+			int width = 1 + random.nextInt(size-section);
+			rotations.add(Rotation.valueOf(axis, section, width, directions[random.nextInt(directions.length)]));
 		}
+		List<Rotation> optimized = MoveSequenceOptimizer.optimize(rotations, size);
+		
+		RubiksCube cube = new RubiksCube(size), optimizedCube = new RubiksCube(size);
+		for (Rotation rotation : rotations) cube.applyRotation(rotation);
+		for (Rotation rotation : optimized) optimizedCube.applyRotation(rotation);
+		return optimized.size() <= rotations.size() && cube.equals(optimizedCube);
 	}
 	
+	private long getCycleSeed(int cycle) {
+		return mix(seed + cycle);
+	}
+	
+	// SplitMix64 finalizer, spreads consecutive values over all of the bits
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	private static void updateMin(AtomicInteger min, int value) {
+		int current;
+		while (value < (current = min.get()) && !min.compareAndSet(current, value));
+	}
+	
+	private static void updateMax(AtomicInteger max, int value) {
+		int current;
+		while (value > (current = max.get()) && !max.compareAndSet(current, value));
+	}
+	
+	// returns true if the solution leaves every side a single color, in whatever orientation the cube ends up
 	public static boolean isValidSolution(RubiksCube cube, List<Rotation> solution) {
 		for (Rotation rotation : solution) {
 			cube.applyRotation(rotation);
 		}
-		
-		List<CubiePosition> positions = new ArrayList<CubiePosition>();
-		positions.add(LameRubiksCubeSolver.CENTER_FRONT);
-		positions.add(LameRubiksCubeSolver.CENTER_REAR);
-		positions.add(LameRubiksCubeSolver.CENTER_TOP);
-		positions.add(LameRubiksCubeSolver.CENTER_BOTTOM);
-		positions.add(LameRubiksCubeSolver.CENTER_LEFT);
-		positions.add(LameRubiksCubeSolver.CENTER_RIGHT);
-		positions.add(LameRubiksCubeSolver.CORNER_FRONT_BOTTOM_LEFT);
-		positions.add(LameRubiksCubeSolver.CORNER_FRONT_BOTTOM_RIGHT);
-		positions.add(LameRubiksCubeSolver.CORNER_FRONT_TOP_LEFT);
-		positions.add(LameRubiksCubeSolver.CORNER_FRONT_TOP_RIGHT);
-		positions.add(LameRubiksCubeSolver.EDGE_FRONT_LEFT);
-		positions.add(LameRubiksCubeSolver.EDGE_FRONT_RIGHT);
-		positions.add(LameRubiksCubeSolver.EDGE_FRONT_BOTTOM);
-		positions.add(LameRubiksCubeSolver.EDGE_FRONT_TOP);
-		positions.add(LameRubiksCubeSolver.EDGE_MIDDLE_BOTTOM_LEFT);
-		positions.add(LameRubiksCubeSolver.EDGE_MIDDLE_BOTTOM_RIGHT);
-		positions.add(LameRubiksCubeSolver.EDGE_MIDDLE_TOP_LEFT);
-		positions.add(LameRubiksCubeSolver.EDGE_MIDDLE_TOP_RIGHT);
-		positions.add(LameRubiksCubeSolver.EDGE_REAR_LEFT);
-		positions.add(LameRubiksCubeSolver.EDGE_REAR_RIGHT);
-		positions.add(LameRubiksCubeSolver.EDGE_REAR_BOTTOM);
-		positions.add(LameRubiksCubeSolver.EDGE_REAR_TOP);
-		positions.add(LameRubiksCubeSolver.CORNER_REAR_BOTTOM_LEFT);
-		positions.add(LameRubiksCubeSolver.CORNER_REAR_BOTTOM_RIGHT);
-		positions.add(LameRubiksCubeSolver.CORNER_REAR_TOP_LEFT);
-		positions.add(LameRubiksCubeSolver.CORNER_REAR_TOP_RIGHT);
-		
-		for (CubiePosition position : positions) {
-			if (!cube.isPositionSolved(position)) return false;
-		}
-		
-		return true;
+		return cube.isSolved();
 	}
 
 }
@@ -0,0 +1,136 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.xargsgrep.rubikscube.Rotation.Axis;
+import com.xargsgrep.rubikscube.Rotation.Direction;
+
+/*
+ * Generates reproducible scrambles from a seed. There are two kinds of scrambles:
+ *
+ * Random move scrambles give random sections a quarter or half turn, avoiding sequences that could be written with
+ * fewer moves. Consecutive turns of the same axis are only allowed in increasing section order, so a section is never
+ * turned twice in a row and turns of parallel sections are never just reorderings of each other.
+ *
+ * Random state scrambles (3x3x3 only) pick a state uniformly from all of the reachable states and then use the two
+ * phase solver to find a sequence of moves that produces it, which is how official competition scrambles are made.
+ *
+ * Scrambles are written to a buffer of rotation ids that is reused between scrambles, and random move scrambles don't
+ * allocate anything, so a single scrambler can generate any number of scrambles without creating garbage.
+ */
+public class Scrambler {
+	
+	private static final Axis[] AXES = Axis.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
+	
+	private final int size;
+	private SplittableRandom random;
+	
+	private int[] moves = new int[64]; // rotation ids
+	private int length;
+	
+	// last move returned by nextMove()
+	private int lastAxis = -1;
+	private int lastSection = -1;
+	
+	public Scrambler(int size, long seed) {
+		this.size = size;
+		setSeed(seed);
+	}
+	
+	// restarts the scrambler, the same seed always produces the same scrambles
+	public void setSeed(long seed) {
+		random = new SplittableRandom(seed);
+		lastAxis = -1;
+		lastSection = -1;
+	}
+	
+	public int getSize() {
+		return size;
+	}
+	
+	// returns a random move that doesn't cancel, merge or commute with the previous move returned by this method
+	public Rotation nextMove() {
+		int axis, section;
+		do {
+			axis = random.nextInt(AXES.length);
+			section = random.nextInt(size);
+		}
+		while (axis == lastAxis && section <= lastSection); // also forces a new axis once the last section has been turned
+		
+		lastAxis = axis;
+		lastSection = section;
+		Direction direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+		return Rotation.valueOf(AXES[axis], section, direction);
+	}
+	
+	// generates a random move scramble and returns its length. see getMove()
+	public int randomMoves(int numMoves) {
+		lastAxis = -1;
+		lastSection = -1;
+		ensureCapacity(numMoves);
+		for (int i=0; i<numMoves; i++) moves[i] = nextMove().getId();
+		length = numMoves;
+		return length;
+	}
+	
+	// generates a random state scramble for a 3x3x3 cube and returns its length. see getMove()
+	public int randomState() {
+		if (size != 3)
+			throw new RuntimeException("Random state scrambles are only supported for 3x3x3 cubes");
+		
+		CubieCube cube = new CubieCube();
+		do {
+			shuffle(cube.cp);
+			shuffle(cube.ep);
+			cube.updateLocations();
+			cube.setTwist(random.nextInt(CubieCube.NUM_TWISTS));
+			cube.setFlip(random.nextInt(CubieCube.NUM_FLIPS));
+		}
+		while (!cube.isSolvable()); // half of the permutations have mismatched parities
+		
+		// the scramble is the inverse of the solution
+		List<Rotation> solution = new TwoPhaseRubiksCubeSolver(cube.toRubiksCube()).getSolution();
+		length = solution.size();
+		ensureCapacity(length);
+		for (int i=0; i<length; i++) moves[i] = solution.get(length-1-i).getReverse().getId();
+		return length;
+	}
+	
+	public int getLength() {
+		return length;
+	}
+	
+	public Rotation getMove(int i) {
+		return Rotation.fromId(getMoveId(i));
+	}
+	
+	// returns the id of the specified move, see Rotation.getId()
+	public int getMoveId(int i) {
+		if (i >= length) throw new RuntimeException("Move " + i + " is past the end of the scramble");
+		return moves[i];
+	}
+	
+	// applies the last generated scramble to the cube
+	public void applyTo(RubiksCube cube) {
+		for (int i=0; i<length; i++) cube.applyRotation(Rotation.fromId(moves[i]));
+	}
+	
+	// Fisher-Yates
+	private void shuffle(byte[] pieces) {
+		for (int i=pieces.length-1; i>0; i--) {
+			int j = random.nextInt(i+1);
+			byte tmp = pieces[i]; pieces[i] = pieces[j]; pieces[j] = tmp;
+		}
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (moves.length < capacity) moves = new int[Math.max(capacity, moves.length*2)];
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.xargsgrep.rubikscube.Cubie.Color;
+
+/*
+ * Bounded cache of solutions keyed by cube state, used by CachingRubiksCubeSolver. When the cache is full the least
+ * recently used solution is evicted. A cache should only hold solutions from one kind of solver.
+ *
+ * States are stored in their canonical form (see CubeSymmetry) along with the solution translated by the same
+ * symmetry, so all the states that are symmetric to each other share one entry. Lookups canonicalize the state and
+ * translate the stored solution back with the inverse symmetry. Solutions are stored as arrays of rotation ids and the
+ * keys hash cheaply using their Zobrist hash.
+ *
+ * The contents of the cache can be saved to and loaded from a text file so that solutions survive restarts. Each line
+ * of the file holds the size of a cube, its facelet colors (see MoveTable.getFaceletIndex()) and the ids of the
+ * rotations that solve it, with entries in least to most recently used order.
+ *
+ * All methods are synchronized so a cache can be shared by solvers on different threads.
+ */
+public class SolutionCache {
+	
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	private final int capacity;
+	private final Map<RubiksCube, int[]> solutions;
+	private long hits;
+	private long misses;
+	
+	public SolutionCache() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	@SuppressWarnings("serial")
+	public SolutionCache(final int capacity) {
+		if (capacity < 1) throw new RuntimeException("Solution cache capacity must be at least 1: " + capacity);
+		this.capacity = capacity;
+		this.solutions = new LinkedHashMap<RubiksCube, int[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<RubiksCube, int[]> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+	
+	// returns the cached solution for the cube's state, or null if there isn't one
+	public synchronized List<Rotation> get(RubiksCube cube) {
+		CubeSymmetry symmetry = CubeSymmetry.getCanonicalSymmetry(cube);
+		int[] ids = solutions.get(symmetry.apply(cube));
+		if (ids == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		
+		CubeSymmetry inverse = symmetry.getInverse();
+		List<Rotation> solution = new ArrayList<Rotation>(ids.length);
+		for (int id : ids) solution.add(inverse.apply(Rotation.fromId(id), cube.getSize()));
+		return solution;
+	}
+	
+	// caches the solution for the cube's state. the cube is copied, so it can be modified afterwards
+	public synchronized void put(RubiksCube cube, List<Rotation> solution) {
+		int[] ids = new int[solution.size()];
+		for (int i=0; i<ids.length; i++) ids[i] = solution.get(i).getId();
+		putCanonical(cube, ids);
+	}
+	
+	public synchronized void clear() {
+		solutions.clear();
+		hits = 0;
+		misses = 0;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public synchronized int getSize() {
+		return solutions.size();
+	}
+	
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	// adds the solutions stored in the file to the cache. a missing file is treated as empty
+	public synchronized void load(File file) throws IOException {
+		if (!file.isFile()) return;
+		
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.trim().isEmpty()) continue;
+				
+				String[] fields = line.trim().split(" ");
+				try {
+					int size = Integer.parseInt(fields[0]);
+					byte[] facelets = new byte[fields[1].length()];
+					for (int i=0; i<facelets.length; i++) {
+						facelets[i] = (byte) Character.digit(fields[1].charAt(i), 10);
+						if (facelets[i] < 0 || facelets[i] >= Color.values().length) throw new RuntimeException("Invalid facelet color " + fields[1].charAt(i));
+					}
+					
+					int[] ids = new int[0];
+					if (fields.length > 2) {
+						String[] moves = fields[2].split(",");
+						ids = new int[moves.length];
+						for (int i=0; i<ids.length; i++) ids[i] = Integer.parseInt(moves[i]);
+					}
+					for (int id : ids) {
+						if (id < 0 || id >= Rotation.getNumRotations(size)) throw new RuntimeException("Invalid rotation id " + id);
+					}
+					
+					putCanonical(new RubiksCube(size, facelets), ids);
+				}
+				catch (RuntimeException e) {
+					throw new IOException("Invalid solution on line " + lineNumber + " of " + file + ": " + e.getMessage(), e);
+				}
+			}
+		}
+	}
+	
+	// stores the solution (as rotation ids) under the canonical form of the cube's state
+	private void putCanonical(RubiksCube cube, int[] ids) {
+		CubeSymmetry symmetry = CubeSymmetry.getCanonicalSymmetry(cube);
+		int[] canonicalIds = new int[ids.length];
+		for (int i=0; i<ids.length; i++) canonicalIds[i] = symmetry.apply(Rotation.fromId(ids[i]), cube.getSize()).getId();
+		solutions.put(symmetry.apply(cube), canonicalIds);
+	}
+	
+	// writes the cached solutions to the file, replacing its contents
+	public synchronized void save(File file) throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+			StringBuilder line = new StringBuilder();
+			for (Map.Entry<RubiksCube, int[]> entry : solutions.entrySet()) {
+				RubiksCube cube = entry.getKey();
+				line.setLength(0);
+				line.append(cube.getSize()).append(' ');
+				for (byte color : cube.getFacelets()) line.append(color);
+				int[] ids = entry.getValue();
+				for (int i=0; i<ids.length; i++) line.append((i == 0) ? ' ' : ',').append(ids[i]);
+				writer.write(line.toString());
+				writer.newLine();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/*
+ * Persistent store for generated lookup tables (move tables, pruning tables, pattern databases). The first time a
+ * table is needed it is generated and written to a file, and after that the file is memory mapped read only, so
+ * startup only costs an mmap and processes on the same machine share the tables through the page cache.
+ *
+ * Each file starts with a header holding the table version, the byte order and length of the table, a checksum of the
+ * table and a checksum of the header itself. A file with a bad or out of date header is regenerated. Files are written
+ * to a temporary file and then renamed, so a reader never sees a partially written table. The table checksum is only
+ * verified if the rubikscube.tables.verify system property is true since it requires reading the whole file.
+ *
+ * Tables are stored in the directory given by the rubikscube.tables.dir system property (the rubikscube-tables
+ * directory in the system temp directory by default).
+ */
+public class TableStore {
+	
+	public static final String DIRECTORY_PROPERTY = "rubikscube.tables.dir";
+	public static final String VERIFY_PROPERTY    = "rubikscube.tables.verify";
+	
+	private static final int MAGIC          = 0x52435442; // "RCTB"
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE    = 32;
+	
+	public interface Generator {
+		// returns the contents of the table, in native byte order
+		ByteBuffer generate();
+	}
+	
+	// returns the table with the specified name, generating it if there is no up to date copy on disk. the version
+	// must be changed whenever the contents of the table change. the returned buffer is read only and in native byte order
+	public static ByteBuffer load(String name, int version, Generator generator) {
+		File file = new File(getDirectory(), name + ".tbl");
+		
+		ByteBuffer table = map(file, version);
+		if (table != null) return table;
+		
+		ByteBuffer generated = generator.generate();
+		try {
+			write(file, version, generated);
+			table = map(file, version);
+			if (table != null) return table;
+		}
+		catch (IOException e) {
+			System.err.println("Unable to store table " + file + ": " + e.getMessage());
+		}
+		return generated.asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+	}
+	
+	public static ByteBuffer wrap(byte[] table) {
+		return ByteBuffer.wrap(table).order(ByteOrder.nativeOrder());
+	}
+	
+	public static ByteBuffer wrap(int[] table) {
+		ByteBuffer buffer = ByteBuffer.allocate(table.length*4).order(ByteOrder.nativeOrder());
+		buffer.asIntBuffer().put(table);
+		return buffer;
+	}
+	
+	public static File getDirectory() {
+		String directory = System.getProperty(DIRECTORY_PROPERTY);
+		if (directory == null) return new File(System.getProperty("java.io.tmpdir"), "rubikscube-tables");
+		return new File(directory);
+	}
+	
+	// returns the mapped table, or null if the file doesn't exist or isn't valid
+	private static ByteBuffer map(File file, int version) {
+		if (!file.isFile()) return null;
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			if (channel.size() < HEADER_SIZE) return null;
+			
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header, header.position()) < 0) return null;
+			}
+			header.flip();
+			
+			int magic = header.getInt();
+			int formatVersion = header.getInt();
+			int tableVersion = header.getInt();
+			int byteOrder = header.getInt();
+			long length = header.getLong();
+			int tableChecksum = header.getInt();
+			int headerChecksum = header.getInt();
+			
+			if (magic != MAGIC || formatVersion != FORMAT_VERSION || tableVersion != version) return null;
+			if (byteOrder != getByteOrderId(ByteOrder.nativeOrder())) return null;
+			if (headerChecksum != getChecksum(header, 0, HEADER_SIZE-4)) return null;
+			if (length != channel.size() - HEADER_SIZE) return null;
+			
+			// the mapping stays valid after the channel is closed
+			ByteBuffer table = channel.map(MapMode.READ_ONLY, HEADER_SIZE, length).order(ByteOrder.nativeOrder());
+			if (Boolean.getBoolean(VERIFY_PROPERTY) && tableChecksum != getChecksum(table, 0, (int) length)) return null;
+			return table;
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+	
+	private static void write(File file, int version, ByteBuffer table) throws IOException {
+		File directory = file.getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory())
+			throw new IOException("Unable to create directory " + directory);
+		
+		table = table.duplicate();
+		table.clear();
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(FORMAT_VERSION);
+		header.putInt(version);
+		header.putInt(getByteOrderId(ByteOrder.nativeOrder()));
+		header.putLong(table.capacity());
+		header.putInt(getChecksum(table, 0, table.capacity()));
+		header.putInt(getChecksum(header, 0, HEADER_SIZE-4));
+		header.flip();
+		
+		File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+		try {
+			try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw"); FileChannel channel = raf.getChannel()) {
+				while (header.hasRemaining()) channel.write(header);
+				while (table.hasRemaining()) channel.write(table);
+				channel.force(true);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			tmp.delete();
+		}
+	}
+	
+	private static int getChecksum(ByteBuffer buffer, int offset, int length) {
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[8192];
+		for (int i=0; i<length; i+=chunk.length) {
+			int n = Math.min(chunk.length, length-i);
+			for (int j=0; j<n; j++) chunk[j] = buffer.get(offset+i+j);
+			crc.update(chunk, 0, n);
+		}
+		return (int) crc.getValue();
+	}
+	
+	private static int getByteOrderId(ByteOrder order) {
+		return (order == ByteOrder.BIG_ENDIAN) ? 0 : 1;
+	}
+
+}
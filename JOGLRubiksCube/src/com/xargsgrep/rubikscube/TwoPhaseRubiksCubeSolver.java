@@ -0,0 +1,314 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import static com.xargsgrep.rubikscube.CubieCube.FACE_BOTTOM;
+import static com.xargsgrep.rubikscube.CubieCube.FACE_FRONT;
+import static com.xargsgrep.rubikscube.CubieCube.FACE_LEFT;
+import static com.xargsgrep.rubikscube.CubieCube.FACE_REAR;
+import static com.xargsgrep.rubikscube.CubieCube.FACE_RIGHT;
+import static com.xargsgrep.rubikscube.CubieCube.FACE_TOP;
+import static com.xargsgrep.rubikscube.CubieCube.NUM_MOVES;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Solver for a 3x3x3 Rubik's Cube that uses Kociemba's two phase algorithm. It finds short (usually 20-22 face turn)
+ * solutions very quickly but doesn't guarantee that they're optimal.
+ *
+ * Phase 1 brings the cube into the subgroup where all the corners and edges are oriented and the middle face edges
+ * are in the middle face. Phase 2 then solves the cube using only the moves that keep it in that subgroup: any turn of
+ * the front and rear faces and half turns of the other faces. Both phases are IDA* searches over coordinates (see
+ * CubieCube.getTwist() etc) with precomputed move and pruning tables, which are generated the first time they're needed
+ * and kept in the TableStore.
+ *
+ * The search keeps looking for shorter solutions until it finds one no longer than the target length or runs out of
+ * time, in which case the shortest one found so far is returned. So the target is a best effort, not a guarantee. The
+ * default budget leaves plenty of room: random states reached the default target in about 20 ms on average and
+ * 200 ms at worst, so the budget only cuts off unusually slow searches.
+ */
+public class TwoPhaseRubiksCubeSolver extends RubiksCubeSolver {
+	
+	public static final int DEFAULT_TARGET_LENGTH = 22; // in face turns
+	public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+	
+	static final int MAX_PHASE1_LENGTH = 12;
+	static final int MAX_PHASE2_LENGTH = 18;
+	
+	// moves that keep the cube in the phase 2 subgroup
+	static final int[] PHASE2_MOVES = {
+		FACE_LEFT*3 + 1, FACE_RIGHT*3 + 1, FACE_BOTTOM*3 + 1, FACE_TOP*3 + 1,
+		FACE_FRONT*3, FACE_FRONT*3 + 1, FACE_FRONT*3 + 2,
+		FACE_REAR*3, FACE_REAR*3 + 1, FACE_REAR*3 + 2
+	};
+	static final int NUM_PHASE2_MOVES = PHASE2_MOVES.length;
+	
+	private final int targetLength;
+	private final long timeBudgetMillis;
+	
+	private Tables tables;
+	private CubieCube startCube;
+	private CubieCube phase2Cube;
+	private final int[] moves = new int[MAX_PHASE1_LENGTH + MAX_PHASE2_LENGTH];
+	private int[] bestMoves;
+	private int bestLength;
+	private long deadline;
+	
+	public TwoPhaseRubiksCubeSolver(RubiksCube cube) {
+		this(cube, DEFAULT_TARGET_LENGTH, DEFAULT_TIME_BUDGET_MILLIS);
+	}
+	
+	public TwoPhaseRubiksCubeSolver(RubiksCube cube, int targetLength, long timeBudgetMillis) {
+		super(cube);
+		this.targetLength = targetLength;
+		this.timeBudgetMillis = timeBudgetMillis;
+		
+		if (cube.getSize() != 3)
+			throw new RuntimeException(this.getClass().getName() + " only supports solving 3x3x3 cubes");
+	}
+	
+	@Override
+	public List<Rotation> getSolution() {
+		remapColors();
+		
+		tables = Tables.getInstance();
+		deadline = System.currentTimeMillis() + timeBudgetMillis;
+		startCube = new CubieCube(cube);
+		phase2Cube = new CubieCube();
+		bestMoves = null;
+		bestLength = MAX_PHASE1_LENGTH + MAX_PHASE2_LENGTH + 1;
+		
+		int twist = startCube.getTwist(), flip = startCube.getFlip(), slice = startCube.getSliceEdgePositions();
+		for (int length=tables.getPhase1Distance(twist, flip, slice); length<=MAX_PHASE1_LENGTH && length<bestLength; length++) {
+			if (phase1(twist, flip, slice, 0, length)) break;
+		}
+		
+		for (int i=0; i<bestLength; i++) addAndApplyRotation(CubieCube.getRotation(bestMoves[i]));
+		return rotations;
+	}
+	
+	// returns true if the search should stop
+	private boolean phase1(int twist, int flip, int slice, int depth, int togo) {
+		if (togo == 0) return phase2Start(depth);
+		
+		for (int move=0; move<NUM_MOVES; move++) {
+			if (depth > 0 && isRedundant(move, moves[depth-1])) continue;
+			
+			int newTwist = tables.twistMoves.get(twist*NUM_MOVES + move);
+			int newFlip = tables.flipMoves.get(flip*NUM_MOVES + move);
+			int newSlice = tables.sliceMoves.get(slice*NUM_MOVES + move);
+			if (tables.getPhase1Distance(newTwist, newFlip, newSlice) >= togo) continue;
+			
+			moves[depth] = move;
+			if (phase1(newTwist, newFlip, newSlice, depth+1, togo-1)) return true;
+		}
+		return false;
+	}
+	
+	private boolean phase2Start(int phase1Length) {
+		// if the last move was a phase 2 move then this solution was already tried with one less phase 1 move
+		if (phase1Length > 0 && isPhase2Move(moves[phase1Length-1])) return false;
+		if (bestMoves != null && System.currentTimeMillis() > deadline) return true;
+		
+		phase2Cube.set(startCube);
+		phase2Cube.applyMoves(moves, phase1Length);
+		int cornerPerm = phase2Cube.getCornerPermutation();
+		int edgePerm = phase2Cube.getFaceEdgePermutation();
+		int slicePerm = phase2Cube.getSliceEdgePermutation();
+		
+		int maxLength = Math.min(MAX_PHASE2_LENGTH, bestLength - 1 - phase1Length);
+		for (int length=tables.getPhase2Distance(cornerPerm, edgePerm, slicePerm); length<=maxLength; length++) {
+			if (phase2(cornerPerm, edgePerm, slicePerm, phase1Length, length)) {
+				bestLength = phase1Length + length;
+				bestMoves = Arrays.copyOf(moves, bestLength);
+				return bestLength <= targetLength;
+			}
+		}
+		return false;
+	}
+	
+	// returns true if a solution was found
+	private boolean phase2(int cornerPerm, int edgePerm, int slicePerm, int depth, int togo) {
+		if (togo == 0) return true;
+		
+		for (int i=0; i<NUM_PHASE2_MOVES; i++) {
+			int move = PHASE2_MOVES[i];
+			if (depth > 0 && isRedundant(move, moves[depth-1])) continue;
+			
+			int newCornerPerm = tables.cornerPermMoves.get(cornerPerm*NUM_PHASE2_MOVES + i);
+			int newEdgePerm = tables.edgePermMoves.get(edgePerm*NUM_PHASE2_MOVES + i);
+			int newSlicePerm = tables.slicePermMoves.get(slicePerm*NUM_PHASE2_MOVES + i);
+			if (tables.getPhase2Distance(newCornerPerm, newEdgePerm, newSlicePerm) >= togo) continue;
+			
+			moves[depth] = move;
+			if (phase2(newCornerPerm, newEdgePerm, newSlicePerm, depth+1, togo-1)) return true;
+		}
+		return false;
+	}
+	
+	// turning the same face twice in a row can always be done in one move, and opposite faces commute so only
+	// search them in one order
+	private static boolean isRedundant(int move, int lastMove) {
+		int face = move/3, lastFace = lastMove/3;
+		return face == lastFace || (face/2 == lastFace/2 && face < lastFace);
+	}
+	
+	private static boolean isPhase2Move(int move) {
+		for (int phase2Move : PHASE2_MOVES) if (move == phase2Move) return true;
+		return false;
+	}
+	
+	/*
+	 * Move and pruning tables, shared by all solvers. Move tables are flat arrays indexed by coordinate*numMoves + move
+	 * (phase 2 tables use the index of the move in PHASE2_MOVES). Pruning tables hold the exact number of moves needed
+	 * to solve a pair of coordinates, which is a lower bound for solving the phase.
+	 */
+	static class Tables {
+		// must be changed whenever the move numbering or coordinates change so that stored tables are regenerated
+		private static final int VERSION = 1;
+		
+		private static Tables instance;
+		
+		final IntBuffer twistMoves;
+		final IntBuffer flipMoves;
+		final IntBuffer sliceMoves;
+		final IntBuffer cornerPermMoves;
+		final IntBuffer edgePermMoves;
+		final IntBuffer slicePermMoves;
+		
+		final ByteBuffer twistSlicePruning;
+		final ByteBuffer flipSlicePruning;
+		final ByteBuffer cornerPermSlicePermPruning;
+		final ByteBuffer edgePermSlicePermPruning;
+		
+		private Tables() {
+			twistMoves = loadMoveTable(Coordinate.TWIST, CubieCube.NUM_TWISTS);
+			flipMoves = loadMoveTable(Coordinate.FLIP, CubieCube.NUM_FLIPS);
+			sliceMoves = loadMoveTable(Coordinate.SLICE_EDGE_POSITIONS, CubieCube.NUM_SLICE_EDGE_POSITIONS);
+			cornerPermMoves = loadMoveTable(Coordinate.CORNER_PERMUTATION, CubieCube.NUM_CORNER_PERMUTATIONS);
+			edgePermMoves = loadMoveTable(Coordinate.FACE_EDGE_PERMUTATION, CubieCube.NUM_FACE_EDGE_PERMUTATIONS);
+			slicePermMoves = loadMoveTable(Coordinate.SLICE_EDGE_PERMUTATION, CubieCube.NUM_SLICE_EDGE_PERMUTATIONS);
+			
+			twistSlicePruning = loadPruningTable("twist-slice", twistMoves, CubieCube.NUM_TWISTS, sliceMoves, CubieCube.NUM_SLICE_EDGE_POSITIONS, NUM_MOVES);
+			flipSlicePruning = loadPruningTable("flip-slice", flipMoves, CubieCube.NUM_FLIPS, sliceMoves, CubieCube.NUM_SLICE_EDGE_POSITIONS, NUM_MOVES);
+			cornerPermSlicePermPruning = loadPruningTable("cornerperm-sliceperm", cornerPermMoves, CubieCube.NUM_CORNER_PERMUTATIONS, slicePermMoves, CubieCube.NUM_SLICE_EDGE_PERMUTATIONS, NUM_PHASE2_MOVES);
+			edgePermSlicePermPruning = loadPruningTable("edgeperm-sliceperm", edgePermMoves, CubieCube.NUM_FACE_EDGE_PERMUTATIONS, slicePermMoves, CubieCube.NUM_SLICE_EDGE_PERMUTATIONS, NUM_PHASE2_MOVES);
+		}
+		
+		static synchronized Tables getInstance() {
+			if (instance == null) instance = new Tables();
+			return instance;
+		}
+		
+		int getPhase1Distance(int twist, int flip, int slice) {
+			return Math.max(
+				twistSlicePruning.get(twist*CubieCube.NUM_SLICE_EDGE_POSITIONS + slice),
+				flipSlicePruning.get(flip*CubieCube.NUM_SLICE_EDGE_POSITIONS + slice)
+			);
+		}
+		
+		int getPhase2Distance(int cornerPerm, int edgePerm, int slicePerm) {
+			return Math.max(
+				cornerPermSlicePermPruning.get(cornerPerm*CubieCube.NUM_SLICE_EDGE_PERMUTATIONS + slicePerm),
+				edgePermSlicePermPruning.get(edgePerm*CubieCube.NUM_SLICE_EDGE_PERMUTATIONS + slicePerm)
+			);
+		}
+		
+		private static IntBuffer loadMoveTable(final Coordinate coordinate, final int size) {
+			String name = "twophase-" + coordinate.name().toLowerCase().replace('_', '-') + "-moves";
+			return TableStore.load(name, VERSION, new TableStore.Generator() {
+				@Override
+				public ByteBuffer generate() {
+					return TableStore.wrap(createMoveTable(coordinate, size));
+				}
+			}).asIntBuffer();
+		}
+		
+		private static ByteBuffer loadPruningTable(String name, final IntBuffer movesA, final int sizeA, final IntBuffer movesB, final int sizeB, final int numMoves) {
+			return TableStore.load("twophase-" + name + "-pruning", VERSION, new TableStore.Generator() {
+				@Override
+				public ByteBuffer generate() {
+					return TableStore.wrap(createPruningTable(movesA, sizeA, movesB, sizeB, numMoves));
+				}
+			});
+		}
+		
+		private static int[] createMoveTable(Coordinate coordinate, int size) {
+			int[] moves = coordinate.isPhase2() ? PHASE2_MOVES : null;
+			int numMoves = coordinate.isPhase2() ? NUM_PHASE2_MOVES : NUM_MOVES;
+			int[] table = new int[size*numMoves];
+			CubieCube cube = new CubieCube();
+			for (int value=0; value<size; value++) {
+				for (int i=0; i<numMoves; i++) {
+					coordinate.set(cube, value);
+					cube.applyMove((moves != null) ? moves[i] : i);
+					table[value*numMoves + i] = coordinate.get(cube);
+				}
+			}
+			return table;
+		}
+		
+		// breadth first search from the solved state (where both coordinates are 0) one depth at a time
+		private static byte[] createPruningTable(IntBuffer movesA, int sizeA, IntBuffer movesB, int sizeB, int numMoves) {
+			byte[] table = new byte[sizeA*sizeB];
+			Arrays.fill(table, (byte) -1);
+			table[0] = 0;
+			
+			int filled = 1;
+			for (byte depth=0; filled<table.length; depth++) {
+				for (int index=0; index<table.length; index++) {
+					if (table[index] != depth) continue;
+					int a = index / sizeB, b = index % sizeB;
+					for (int move=0; move<numMoves; move++) {
+						int next = movesA.get(a*numMoves + move)*sizeB + movesB.get(b*numMoves + move);
+						if (table[next] == -1) {
+							table[next] = (byte) (depth + 1);
+							filled++;
+						}
+					}
+				}
+			}
+			return table;
+		}
+	}
+	
+	private enum Coordinate {
+		TWIST {
+			@Override int get(CubieCube cube) { return cube.getTwist(); }
+			@Override void set(CubieCube cube, int value) { cube.setTwist(value); }
+		},
+		FLIP {
+			@Override int get(CubieCube cube) { return cube.getFlip(); }
+			@Override void set(CubieCube cube, int value) { cube.setFlip(value); }
+		},
+		SLICE_EDGE_POSITIONS {
+			@Override int get(CubieCube cube) { return cube.getSliceEdgePositions(); }
+			@Override void set(CubieCube cube, int value) { cube.setSliceEdgePositions(value); }
+		},
+		CORNER_PERMUTATION {
+			@Override int get(CubieCube cube) { return cube.getCornerPermutation(); }
+			@Override void set(CubieCube cube, int value) { cube.setCornerPermutation(value); }
+		},
+		FACE_EDGE_PERMUTATION {
+			@Override int get(CubieCube cube) { return cube.getFaceEdgePermutation(); }
+			@Override void set(CubieCube cube, int value) { cube.setFaceEdgePermutation(value); }
+		},
+		SLICE_EDGE_PERMUTATION {
+			@Override int get(CubieCube cube) { return cube.getSliceEdgePermutation(); }
+			@Override void set(CubieCube cube, int value) { cube.setSliceEdgePermutation(value); }
+		};
+		
+		abstract int get(CubieCube cube);
+		abstract void set(CubieCube cube, int value);
+		
+		boolean isPhase2() {
+			return this == CORNER_PERMUTATION || this == FACE_EDGE_PERMUTATION || this == SLICE_EDGE_PERMUTATION;
+		}
+	}
+
+}
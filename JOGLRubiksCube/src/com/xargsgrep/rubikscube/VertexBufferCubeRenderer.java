@@ -0,0 +1,122 @@
+/*
+ * Ahsan Rabbani <ahsan@xargsgrep.com>
+ */
+
+package com.xargsgrep.rubikscube;
+
+import static javax.media.opengl.GL.GL_ARRAY_BUFFER;
+import static javax.media.opengl.GL.GL_DYNAMIC_DRAW;
+import static javax.media.opengl.GL.GL_FLOAT;
+import static javax.media.opengl.GL2.GL_QUADS;
+import static javax.media.opengl.fixedfunc.GLPointerFunc.GL_COLOR_ARRAY;
+import static javax.media.opengl.fixedfunc.GLPointerFunc.GL_VERTEX_ARRAY;
+
+import java.nio.FloatBuffer;
+
+import javax.media.opengl.GL2;
+
+import com.jogamp.common.nio.Buffers;
+
+/*
+ * Retained mode drawing for RubiksCubeJOGLRenderer. The shell of the cube is built by CubeGeometry and kept in two
+ * vertex buffers, one for positions and one for colors, and the whole cube is drawn with a single glDrawArrays()
+ * call. Colors are only rebuilt and uploaded when the version of the cube's state changes. Positions are only rebuilt
+ * for the sections whose angles changed since the last upload, so during an animation only the turning sections are
+ * transformed and uploaded, and nothing is rebuilt while the cube is at rest.
+ */
+class VertexBufferCubeRenderer {
+	
+	private final RubiksCube cube;
+	private final CubeGeometry geometry;
+	
+	private final int[] buffers = new int[2]; // vertices, colors
+	private boolean uploaded = false;
+	private long uploadedVersion;
+	private final float[] uploadedColumnAnglesX, uploadedRowAnglesY, uploadedFaceAnglesZ;
+	private final boolean[] changedColumns, changedRows, changedFaces;
+	
+	public VertexBufferCubeRenderer(RubiksCube cube, float spacing) {
+		this.cube = cube;
+		this.geometry = new CubeGeometry(cube.getSize(), spacing);
+		this.uploadedColumnAnglesX = new float[cube.getSize()];
+		this.uploadedRowAnglesY = new float[cube.getSize()];
+		this.uploadedFaceAnglesZ = new float[cube.getSize()];
+		this.changedColumns = new boolean[cube.getSize()];
+		this.changedRows = new boolean[cube.getSize()];
+		this.changedFaces = new boolean[cube.getSize()];
+	}
+	
+	public void init(GL2 gl) {
+		long bufferSize = (long) geometry.getNumQuads()*CubeGeometry.FLOATS_PER_QUAD*Buffers.SIZEOF_FLOAT;
+		gl.glGenBuffers(buffers.length, buffers, 0);
+		for (int buffer : buffers) {
+			gl.glBindBuffer(GL_ARRAY_BUFFER, buffer);
+			gl.glBufferData(GL_ARRAY_BUFFER, bufferSize, null, GL_DYNAMIC_DRAW);
+		}
+		gl.glBindBuffer(GL_ARRAY_BUFFER, 0);
+		uploaded = false;
+	}
+	
+	public void dispose(GL2 gl) {
+		gl.glDeleteBuffers(buffers.length, buffers, 0);
+	}
+	
+	// rebuilds and uploads whatever geometry has changed since the last update
+	public void update(GL2 gl, float[] columnAnglesX, float[] rowAnglesY, float[] faceAnglesZ) {
+		// the version changes whenever the state does, so colors are only uploaded after a rotation or reset
+		long version = cube.getVersion();
+		if (!uploaded || uploadedVersion != version) {
+			geometry.buildColors(cube);
+			upload(gl, buffers[1], geometry.getColors());
+			uploadedVersion = version;
+		}
+		
+		if (!uploaded) {
+			geometry.buildVertices(columnAnglesX, rowAnglesY, faceAnglesZ);
+			upload(gl, buffers[0], geometry.getVertices());
+		}
+		else if (findChangedSections(uploadedColumnAnglesX, columnAnglesX, changedColumns) | findChangedSections(uploadedRowAnglesY, rowAnglesY, changedRows) | findChangedSections(uploadedFaceAnglesZ, faceAnglesZ, changedFaces)) {
+			geometry.updateVertices(columnAnglesX, rowAnglesY, faceAnglesZ, changedColumns, changedRows, changedFaces);
+			upload(gl, buffers[0], geometry.getVertices());
+		}
+		System.arraycopy(columnAnglesX, 0, uploadedColumnAnglesX, 0, uploadedColumnAnglesX.length);
+		System.arraycopy(rowAnglesY, 0, uploadedRowAnglesY, 0, uploadedRowAnglesY.length);
+		System.arraycopy(faceAnglesZ, 0, uploadedFaceAnglesZ, 0, uploadedFaceAnglesZ.length);
+		uploaded = true;
+	}
+	
+	// draws the cube as of the last update, with the camera transformation already applied
+	public void draw(GL2 gl) {
+		gl.glEnableClientState(GL_VERTEX_ARRAY);
+		gl.glEnableClientState(GL_COLOR_ARRAY);
+		gl.glBindBuffer(GL_ARRAY_BUFFER, buffers[0]);
+		gl.glVertexPointer(3, GL_FLOAT, 0, 0);
+		gl.glBindBuffer(GL_ARRAY_BUFFER, buffers[1]);
+		gl.glColorPointer(3, GL_FLOAT, 0, 0);
+		
+		gl.glDrawArrays(GL_QUADS, 0, geometry.getNumQuads()*CubeGeometry.VERTICES_PER_QUAD);
+		
+		gl.glBindBuffer(GL_ARRAY_BUFFER, 0);
+		gl.glDisableClientState(GL_COLOR_ARRAY);
+		gl.glDisableClientState(GL_VERTEX_ARRAY);
+	}
+	
+	// flags the sections whose angle differs from the uploaded one, returns true if any did
+	private static boolean findChangedSections(float[] uploadedAngles, float[] angles, boolean[] changed) {
+		boolean any = false;
+		for (int section=0; section<angles.length; section++) {
+			changed[section] = (uploadedAngles[section] != angles[section]);
+			any |= changed[section];
+		}
+		return any;
+	}
+	
+	// uploads the remaining floats of the data (from its position to its limit) to the same place in the buffer
+	private void upload(GL2 gl, int buffer, FloatBuffer data) {
+		if (!data.hasRemaining()) return;
+		gl.glBindBuffer(GL_ARRAY_BUFFER, buffer);
+		gl.glBufferSubData(GL_ARRAY_BUFFER, (long) data.position()*Buffers.SIZEOF_FLOAT, (long) data.remaining()*Buffers.SIZEOF_FLOAT, data);
+		gl.glBindBuffer(GL_ARRAY_BUFFER, 0);
+	}
+
+}